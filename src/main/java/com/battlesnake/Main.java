@@ -16,8 +16,13 @@
 
 package com.battlesnake;
 
+import com.battlesnake.minimax.TranspositionTable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+
+import java.util.concurrent.ForkJoinPool;
 
 @SpringBootApplication
 public class Main {
@@ -26,4 +31,17 @@ public class Main {
     SpringApplication.run(Main.class, args);
   }
 
+  // shared by every search, entries from earlier turns keep paying off on the next one. Each
+  // game's session searches through its own view, with a generation of its own
+  @Bean
+  public TranspositionTable transpositionTable(@Value("${snake.search.table-mb:64}") int megabytes) {
+    return new TranspositionTable(megabytes);
+  }
+
+  // search threads are kept off the common pool so nothing else competes with them
+  @Bean(destroyMethod = "shutdownNow")
+  public ForkJoinPool searchPool(@Value("${snake.search.workers:0}") int workers) {
+    return new ForkJoinPool(workers > 0 ? workers : Runtime.getRuntime().availableProcessors());
+  }
+
 }
@@ -18,61 +18,239 @@ package com.battlesnake;
 
 import com.battlesnake.board.Board;
 import com.battlesnake.board.BoardGame;
+import com.battlesnake.board.GameState;
 import com.battlesnake.data.*;
 import java.util.*;
 
 import com.battlesnake.math.Point;
+import com.battlesnake.mcts.MctsSearch;
+import com.battlesnake.minimax.Minimax;
+import com.battlesnake.minimax.MultiSnakeSearch;
+import com.battlesnake.minimax.ParallelSearch;
+import com.battlesnake.minimax.SearchWorker;
+import com.battlesnake.minimax.SimultaneousSearch;
+import com.battlesnake.ponder.PonderService;
+import com.battlesnake.session.GameSession;
+import com.battlesnake.session.SessionRegistry;
+import com.battlesnake.timing.AdmissionControl;
+import com.battlesnake.timing.Deadline;
+import com.battlesnake.timing.LatencyBudget;
+import com.battlesnake.timing.MoveFallbacks;
+import com.battlesnake.timing.RequestTimingFilter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
 @RestController
 public class RequestController {
 
-    @RequestMapping(value="/", method=RequestMethod.GET, produces="application/json")
-    public StartResponse get() {
-        return new StartResponse()
+    private static final Logger log = LoggerFactory.getLogger(RequestController.class);
+
+    private final LatencyBudget budget;
+    private final ForkJoinPool searchPool;
+    private final PonderService ponder;
+    private final SessionRegistry sessions;
+    private final MoveRequestDecoder decoder;
+    private final EncodedResponses responses;
+    private final MoveFallbacks fallbacks;
+    private final AdmissionControl admission;
+
+    // every request thread decodes into the same frame, which is only read until we answer
+    private final ThreadLocal<MoveFrame> frames = ThreadLocal.withInitial(MoveFrame::new);
+
+    // the identity document never changes, so it's only encoded once
+    private final byte[] identity;
+
+    // pathfinding, minimax, simultaneous or mcts
+    @Value("${snake.strategy:pathfinding}")
+    private String strategy;
+
+    @Value("${snake.search.max-depth:12}")
+    private int maxDepth;
+
+    // how the other snakes play when there are more than two, PARANOID or MAX_N
+    @Value("${snake.search.multi-mode:PARANOID}")
+    private MultiSnakeSearch.Mode multiMode;
+
+    public RequestController(LatencyBudget budget, ForkJoinPool searchPool, PonderService ponder,
+                             SessionRegistry sessions, MoveRequestDecoder decoder, EncodedResponses responses,
+                             MoveFallbacks fallbacks, AdmissionControl admission) {
+        this.budget = budget;
+        this.searchPool = searchPool;
+        this.ponder = ponder;
+        this.sessions = sessions;
+        this.decoder = decoder;
+        this.responses = responses;
+        this.fallbacks = fallbacks;
+        this.admission = admission;
+        this.identity = responses.encode(new StartResponse()
                 .setApiVersion("1")
                 .setName("Crimson Snake")
                 .setColor("#990000")
                 .setHeadType(HeadType.PIXEL)
                 .setTailType(TailType.BOLT)
-                .setTaunt("Crimson Snakeee");
+                .setTaunt("Crimson Snakeee"));
+    }
+
+    @RequestMapping(value="/", method=RequestMethod.GET)
+    public void get(HttpServletResponse response) throws IOException {
+        write(response, identity);
+    }
+
+    @RequestMapping(value="/start", method=RequestMethod.POST)
+    public void start(@RequestBody StartRequest request, HttpServletResponse response) throws IOException {
+        sessions.start(request.getGameId(), request.getWidth(), request.getHeight());
+        write(response, identity);
+    }
+
+    @RequestMapping(value="/move", method=RequestMethod.POST)
+    public void move(HttpServletRequest servletRequest, HttpServletResponse response) throws IOException {
+        AdmissionControl.Level level = admission.enter();
+        try {
+            write(response, responses.move(move(readMove(servletRequest), servletRequest, level)));
+        } finally {
+            admission.exit(level);
+        }
+    }
+
+    private Move move(MoveFrame frame, HttpServletRequest servletRequest, AdmissionControl.Level level) {
+        // the last turn's ponder has had all the time it gets, this search needs the cores
+        ponder.cancel(frame.getGameId());
+
+        GameSession session = sessions.acquire(frame.getGameId(), frame.getWidth(), frame.getHeight());
+        try {
+            return play(frame, servletRequest, level, session);
+        } finally {
+            sessions.release(session);
+        }
+    }
+
+    private Move play(MoveFrame frame, HttpServletRequest servletRequest, AdmissionControl.Level level,
+                      GameSession session) {
+        BoardGame board = new BoardGame();
+        board.init(frame, session);
+        int head = frame.head(frame.getYou());
+
+        long searchStart = System.nanoTime();
+        Deadline deadline = budget.deadline(requestStart(servletRequest, searchStart), frame.getTimeout());
+        // whatever happens below, this is what we answer when the time is up
+        Move safe = board.safeMove(head);
+
+        Move move = null;
+        fallbacks.moved();
+        if (level == AdmissionControl.Level.SAFE) {
+            // too busy to search at all, the room behind each move is all we look at
+            move = board.floodFillMove(head);
+            fallbacks.fellBack("overloaded, " + admission.getInFlight() + " moves in flight");
+        } else if ("minimax".equals(strategy) || "simultaneous".equals(strategy)) {
+            move = searchMove(session, board, frame, deadline, level == AdmissionControl.Level.SHALLOW);
+        } else if ("mcts".equals(strategy)) {
+            move = playoutMove(board, frame, deadline, level == AdmissionControl.Level.SHALLOW);
+        }
+        // the search gives up without a move when it can't finish a single depth
+        // the pathfinding works on the snakes as objects, so they are only built for it
+        if (move == null && !deadline.expired()) {
+            Snake mySnake = board.getMySnake();
+            move = mySnake.move(board, findEnemySnake(board.getSnakes(), mySnake));
+            if (deadline.expired()) fallbacks.fellBack("pathfinding overran the deadline");
+        }
+        if (move == null) {
+            fallbacks.fellBack("no move in time");
+            move = safe;
+        }
+        servletRequest.setAttribute(RequestTimingFilter.SEARCH_ATTRIBUTE, System.nanoTime() - searchStart);
+        session.finishTurn();
+        return move;
+    }
+
+    private void write(HttpServletResponse response, byte[] body) throws IOException {
+        response.setContentType("application/json;charset=UTF-8");
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    // shallow leaves the other threads to the searches already running, at half the depth
+    private Move searchMove(GameSession session, BoardGame board, MoveFrame frame, Deadline deadline, boolean shallow) {
+        int snakes = frame.getSnakeCount();
+        SearchWorker worker;
+        Minimax minimax = null;
+        int depth = maxDepth;
+        if ("simultaneous".equals(strategy)) {
+            // a depth here is a whole turn, so the same cap reaches twice as far
+            worker = new SimultaneousSearch(load(board, frame));
+        } else if (snakes > 2) {
+            // one ply per snake, so the same number of rounds as the head to head search
+            worker = new MultiSnakeSearch(load(board, frame), multiMode);
+            depth = Math.max(1, maxDepth / 2) * snakes;
+        } else {
+            // the head to head search still scores leaves with the snakes as objects
+            worker = minimax = new Minimax(board.getBoard(), board.getMySnake(), board.getSnakes(), board.getFood(),
+                    session.getTable());
+            minimax.setOrdering(session.getOrdering(snakes));
+            session.getTable().newSearch();
+        }
+
+        if (shallow) depth = Math.max(1, depth / 2);
+        ParallelSearch search = new ParallelSearch(searchPool, shallow ? 1 : searchPool.getParallelism(), depth);
+        MoveValue best = search.search(worker, deadline);
+        log.debug("Search depth: {}, nodes: {}, time left: {}ms",
+                search.getCompletedDepth(), search.getNodes(), deadline.remainingMillis());
+        if (best == null) return null;
+        // the search has put its board back, the copy carries on with it after we answer
+        if (minimax != null) ponder.ponder(session.getGameId(), new Minimax(minimax), best.returnMove);
+        return best.returnMove;
+    }
+
+    private Move playoutMove(BoardGame board, MoveFrame frame, Deadline deadline, boolean shallow) {
+        int workers = shallow ? 1 : searchPool.getParallelism();
+        MctsSearch search = new MctsSearch(searchPool, workers, load(board, frame));
+        Move move = search.search(deadline);
+        log.debug("Playouts: {}, {}/sec", search.getPlayouts(), Math.round(search.getPlayoutsPerSecond()));
+        return move;
     }
 
-    @RequestMapping(value="/move", method=RequestMethod.POST, produces = "application/json")
-    public MoveResponse move(@RequestBody MoveRequest request) {
-        MoveResponse moveResponse = new MoveResponse();
-        
-        Snake mySnake = findOurSnake(request); // kind of handy to have our snake at this level
-        BoardGame board = request.getBoard();
-        board.init(mySnake);
+    private GameState load(BoardGame board, MoveFrame frame) {
+        GameState state = new GameState(board.getBoard());
+        state.load(frame);
+        return state;
+    }
 
-        Move move = mySnake.move(board, findEnemySnake(request, mySnake));
+    // a body that doesn't parse is the client's fault, the same 400 that @RequestBody gives
+    private MoveFrame readMove(HttpServletRequest servletRequest) throws IOException {
+        MoveFrame frame = frames.get();
+        try {
+            decoder.decode(servletRequest.getInputStream(), frame);
+            return frame;
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("Could not read move request: " + e.getMessage(), e);
+        }
+    }
 
-        return moveResponse.setMove(move);
+    private long requestStart(HttpServletRequest servletRequest, long fallback) {
+        Object start = servletRequest.getAttribute(RequestTimingFilter.START_ATTRIBUTE);
+        return start instanceof Long ? (Long) start : fallback;
     }
 
     @RequestMapping(value="/end", method=RequestMethod.POST)
-    public Object end() {
+    public Object end(@RequestBody(required = false) MoveRequest request) {
+        if (request != null) {
+            ponder.cancel(request.getGameId());
+            sessions.end(request.getGameId());
+        }
         // No response required
         Map<String, Object> responseObject = new HashMap<String, Object>();
         return responseObject;
     }
 
-    /*
-     *  Go through the snakes and find your team's snake
-     *  
-     *  @param  request The MoveRequest from the server
-     *  @return         Your team's snake
-     */
-    private Snake findOurSnake(MoveRequest request) {
-        String myUuid = request.getYou().getId();
-        List<Snake> snakes = request.getBoard().getSnakes();
-        return snakes.stream().filter(thisSnake -> thisSnake.getId().equals(myUuid)).findFirst().orElse(null);
-    }
-
-    private Snake findEnemySnake(MoveRequest request, Snake mySnake){
-        List<Snake> snakes = request.getBoard().getSnakes();
-
+    private Snake findEnemySnake(List<Snake> snakes, Snake mySnake){
         Snake enemy = null;
         //get max distance
         double distance = 1000;
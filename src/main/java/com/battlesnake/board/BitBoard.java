@@ -0,0 +1,316 @@
+package com.battlesnake.board;
+
+import com.battlesnake.math.Point;
+
+public class BitBoard {
+
+    private final Grid grid;
+    private final int width;
+    private final int height;
+    private final int cells;
+    private final int words;
+
+    // one bit per cell, the cell index is y * width + x
+    private final long[] occupied;
+    private final long[] food;
+    private final long[] heads;
+    private final long[] tails;
+    private final long[] danger;
+
+    // masks for the word-level neighbour expansion
+    private final long[] board;
+    private final long[] notFirstColumn;
+    private final long[] notLastColumn;
+
+    public BitBoard(int width, int height) {
+        this.grid = Grid.of(width, height);
+        this.width = width;
+        this.height = height;
+        this.cells = width * height;
+        this.words = (cells + 63) >>> 6;
+
+        occupied = new long[words];
+        food = new long[words];
+        heads = new long[words];
+        tails = new long[words];
+        danger = new long[words];
+
+        board = new long[words];
+        notFirstColumn = new long[words];
+        notLastColumn = new long[words];
+        for (int cell = 0; cell < cells; cell++) {
+            set(board, cell);
+            if (cell % width != 0) set(notFirstColumn, cell);
+            if (cell % width != width - 1) set(notLastColumn, cell);
+        }
+    }
+
+    // an independent copy for another search thread, the masks never change and are shared
+    public BitBoard(BitBoard other) {
+        this.grid = other.grid;
+        this.width = other.width;
+        this.height = other.height;
+        this.cells = other.cells;
+        this.words = other.words;
+
+        occupied = other.occupied.clone();
+        food = other.food.clone();
+        heads = other.heads.clone();
+        tails = other.tails.clone();
+        danger = other.danger.clone();
+
+        board = other.board;
+        notFirstColumn = other.notFirstColumn;
+        notLastColumn = other.notLastColumn;
+    }
+
+    public void clear() {
+        for (int i = 0; i < words; i++) {
+            occupied[i] = 0;
+            food[i] = 0;
+            heads[i] = 0;
+            tails[i] = 0;
+            danger[i] = 0;
+        }
+    }
+
+    public int index(int x, int y) {
+        return grid.index(x, y);
+    }
+
+    public int index(Point point) {
+        return grid.index(point);
+    }
+
+    public boolean exists(int x, int y) {
+        return grid.exists(x, y);
+    }
+
+    public boolean exists(Point point) {
+        return grid.exists(point);
+    }
+
+    // a body segment that will not move out of the way this turn
+    public void setWall(int cell) {
+        set(occupied, cell);
+        clear(tails, cell);
+        clear(heads, cell);
+    }
+
+    public void setTail(int cell) {
+        set(occupied, cell);
+        set(tails, cell);
+        clear(heads, cell);
+    }
+
+    // an enemy head, our own head is stamped as a wall
+    public void setHead(int cell) {
+        set(occupied, cell);
+        set(heads, cell);
+        clear(tails, cell);
+    }
+
+    public void setDanger(int cell) {
+        set(danger, cell);
+    }
+
+    public void clearDanger(int cell) {
+        clear(danger, cell);
+    }
+
+    public void clearAllDanger() {
+        for (int i = 0; i < words; i++) {
+            danger[i] = 0;
+        }
+    }
+
+    public void setFood(int cell) {
+        set(food, cell);
+    }
+
+    public void clearFood(int cell) {
+        clear(food, cell);
+    }
+
+    public void clearCell(int cell) {
+        clear(occupied, cell);
+        clear(tails, cell);
+        clear(heads, cell);
+    }
+
+    // every bit of a cell packed into an int, so a move can be undone by restoring it
+    public int cellState(int cell) {
+        int word = cell >>> 6;
+        return (int) (occupied[word] >>> cell & 1L)
+                | (int) (food[word] >>> cell & 1L) << 1
+                | (int) (heads[word] >>> cell & 1L) << 2
+                | (int) (tails[word] >>> cell & 1L) << 3
+                | (int) (danger[word] >>> cell & 1L) << 4;
+    }
+
+    public void restoreCell(int cell, int state) {
+        put(occupied, cell, (state & 1) != 0);
+        put(food, cell, (state & 2) != 0);
+        put(heads, cell, (state & 4) != 0);
+        put(tails, cell, (state & 8) != 0);
+        put(danger, cell, (state & 16) != 0);
+    }
+
+    public boolean isOccupied(int cell) {
+        return test(occupied, cell);
+    }
+
+    public boolean isFood(int cell) {
+        return test(food, cell);
+    }
+
+    public boolean isHead(int cell) {
+        return test(heads, cell);
+    }
+
+    public boolean isTail(int cell) {
+        return test(tails, cell);
+    }
+
+    public boolean isDanger(int cell) {
+        return test(danger, cell);
+    }
+
+    // a wall or a body segment, tails and enemy heads are not filled
+    public boolean isFilled(int cell) {
+        int word = cell >>> 6;
+        return ((occupied[word] & ~tails[word] & ~heads[word]) >>> cell & 1L) != 0;
+    }
+
+    // filled or next to a head that beats us
+    public boolean isBlocked(int cell) {
+        int word = cell >>> 6;
+        return (((occupied[word] & ~tails[word] & ~heads[word]) | danger[word]) >>> cell & 1L) != 0;
+    }
+
+    public long[] newMask() {
+        return new long[words];
+    }
+
+    // cells that can be entered, optionally treating danger cells as walls
+    public long[] passable(long[] out, boolean excludeDanger) {
+        for (int i = 0; i < words; i++) {
+            long free = board[i] & ~(occupied[i] & ~tails[i] & ~heads[i]);
+            out[i] = excludeDanger ? free & ~danger[i] : free;
+        }
+        return out;
+    }
+
+    // out = every cell orthogonally next to a cell in src
+    public long[] expand(long[] src, long[] out) {
+        for (int i = 0; i < words; i++) out[i] = 0;
+
+        // x + 1 and x - 1
+        long carry = 0;
+        for (int i = 0; i < words; i++) {
+            long w = src[i] & notLastColumn[i];
+            out[i] |= (w << 1) | carry;
+            carry = w >>> 63;
+        }
+        carry = 0;
+        for (int i = words - 1; i >= 0; i--) {
+            long w = src[i] & notFirstColumn[i];
+            out[i] |= (w >>> 1) | carry;
+            carry = w << 63;
+        }
+
+        // y + 1 and y - 1
+        int wordShift = width >>> 6;
+        int bitShift = width & 63;
+        for (int i = words - 1; i >= wordShift; i--) {
+            int j = i - wordShift;
+            long v = src[j] << bitShift;
+            if (bitShift != 0 && j > 0) v |= src[j - 1] >>> (64 - bitShift);
+            out[i] |= v;
+        }
+        for (int i = 0; i + wordShift < words; i++) {
+            int j = i + wordShift;
+            long v = src[j] >>> bitShift;
+            if (bitShift != 0 && j + 1 < words) v |= src[j + 1] << (64 - bitShift);
+            out[i] |= v;
+        }
+
+        for (int i = 0; i < words; i++) out[i] &= board[i];
+        return out;
+    }
+
+    // fills region with every passable cell connected to start and returns its size
+    public int floodFill(int start, long[] passable, long[] region) {
+        long[] frontier = newMask();
+        for (int i = 0; i < words; i++) region[i] = 0;
+        set(region, start);
+        set(frontier, start);
+
+        long[] next = newMask();
+        boolean grown = true;
+        while (grown) {
+            expand(frontier, next);
+            grown = false;
+            for (int i = 0; i < words; i++) {
+                long added = next[i] & passable[i] & ~region[i];
+                frontier[i] = added;
+                if (added != 0) {
+                    region[i] |= added;
+                    grown = true;
+                }
+            }
+        }
+        return count(region);
+    }
+
+    public static int count(long[] set) {
+        int total = 0;
+        for (long word : set) total += Long.bitCount(word);
+        return total;
+    }
+
+    // index of the first set cell at or after from, or -1
+    public static int nextSetBit(long[] set, int from) {
+        int word = from >>> 6;
+        if (word >= set.length) return -1;
+        long bits = set[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) return (word << 6) + Long.numberOfTrailingZeros(bits);
+            if (++word == set.length) return -1;
+            bits = set[word];
+        }
+    }
+
+    public static boolean test(long[] set, int cell) {
+        return (set[cell >>> 6] >>> cell & 1L) != 0;
+    }
+
+    public static void set(long[] set, int cell) {
+        set[cell >>> 6] |= 1L << cell;
+    }
+
+    public static void clear(long[] set, int cell) {
+        set[cell >>> 6] &= ~(1L << cell);
+    }
+
+    private static void put(long[] set, int cell, boolean value) {
+        if (value) set(set, cell);
+        else clear(set, cell);
+    }
+
+    public Grid getGrid() {
+        return grid;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getCells() {
+        return cells;
+    }
+}
@@ -1,8 +1,6 @@
 package com.battlesnake.board;
 
 import com.battlesnake.data.Move;
-import com.battlesnake.data.MovePoint;
-import com.battlesnake.data.MoveValue;
 import com.battlesnake.data.Snake;
 import com.battlesnake.math.Point;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -18,31 +16,27 @@ public class Board {
     private ArrayList<Snake> snakes; //	Array of all living snakes in the game
     private ArrayList<Snake> deadSnakes; //Array of all dead snakes in the game
 
-    //minimax algorithm
-    private static final int MIN = -1000;
-    private static final int NONE = -50;
-    private static final int MAX = 1000;
-
     private static final int IGNORE_SIZE = 4;
 
     //Game Map
-    private transient TileType[][] board;
-    private transient Stack<TileType[][]> previousBoard;
-    private transient Integer[][] regions;
+    private transient BitBoard board;
+    private transient Grid grid;
+    private transient int[] regions;
+
+    // breadth first search scratch, sized once per board
+    private transient int[] queue;
+    private transient int[] initialMoves;
 
-    private TileType[][] setupBoard(TileType[][] currentBoard) {
-        TileType[][] board = currentBoard;
+    private BitBoard setupBoard(BitBoard currentBoard) {
+        BitBoard board = currentBoard;
         if(board == null)
-            board = new TileType[width][height];
+            board = new BitBoard(width, height);
+        grid = board.getGrid();
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                board[x][y] = TileType.EMPTY;
-            }
-        }
+        board.clear();
 
         for (Point snack : food) {
-            board[snack.getX()][snack.getY()] = TileType.FOOD;
+            board.setFood(board.index(snack));
         }
 
         for (Snake snake : snakes) {
@@ -52,27 +46,25 @@ public class Board {
                 if ((i == body.size() - 1)
                         && body.size() > 1
                         && !snake.justAte()) {
-                    board[body.get(i).getX()][body.get(i).getY()] = TileType.TAIL;
+                    board.setTail(board.index(body.get(i)));
                 } else {
                     if(body.get(i).getX() < 0 || body.get(i).getY() < 0)
                         System.out.println(body.get(i).getX() + ", " + body.get(i).getY());
-                    board[body.get(i).getX()][body.get(i).getY()] = TileType.WALL;
+                    board.setWall(board.index(body.get(i)));
                 }
             }
 
             if (snake.equals(you())) {
-                board[head.getX()][head.getY()] = TileType.ME;
+                board.setWall(board.index(head));
             } else {
-                board[head.getX()][head.getY()] = TileType.HEADS;
+                board.setHead(board.index(head));
 
                 if (!you().longerThan(snake)) {
-                    List<Point> around = findAdjacent(head);
-                    for (Point point : around) {
-                        if (exists(point)) {
-                            if (board[point.getX()][point.getY()] == TileType.EMPTY
-                                    || board[point.getX()][point.getY()] == TileType.FOOD) {
-                                board[point.getX()][point.getY()] = TileType.FAKE_WALL;
-                            }
+                    int headCell = grid.index(head);
+                    for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+                        int cell = grid.neighbour(headCell, direction);
+                        if (cell != Grid.NONE && !board.isOccupied(cell)) {
+                            board.setDanger(cell);
                         }
                     }
                 }
@@ -81,399 +73,161 @@ public class Board {
         return board;
     }
 
-    private TileType[][] appendBoard(Snake snake, TileType[][] currentBoard){
-        TileType[][] board = currentBoard;
-
-        List<Point> body = snake.getBody();
-        Point head = body.get(0);
-        for (int i = 0; i < body.size(); i++) {
-            if ((i == body.size() - 1)
-                    && body.size() > 1
-                    && !snake.justAte()) {
-                board[body.get(i).getX()][body.get(i).getY()] = TileType.TAIL;
-            } else {
-                if(body.get(i).getX() < 0 || body.get(i).getY() < 0)
-                    System.out.println(body.get(i).getX() + ", " + body.get(i).getY());
-                board[body.get(i).getX()][body.get(i).getY()] = TileType.WALL;
-            }
-        }
-
-        board[head.getX()][head.getY()] = TileType.ME;
-        return board;
-    }
-
-    private TileType[][] clearSnakeOffBoard(Snake snake, TileType[][] currentBoard){
-        TileType[][] board = currentBoard;
-        List<Point> body = snake.getBody();
-        Point head = body.get(0);
-        for (int i = 0; i < body.size(); i++) {
-            board[body.get(i).getX()][body.get(i).getY()] = TileType.EMPTY;
-        }
-        return board;
-    }
-
-    private interface Exit {
-        public boolean shouldExit(MovePoint point, Point initial);
-
-        public List<MovePoint> onFailure(List<MovePoint> path);
-    }
-
-    private void fill(Point point) {
-        if (!exists(point)) return;
-        regions[point.getX()][point.getY()] = 0;
-    }
-
     private void fillIn() {
-        this.regions = new Integer[width][height];
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                if (isFilled(new Point(x, y))) {
-                    regions[x][y] = 0;
-                }
+        this.regions = new int[board.getCells()];
+        boolean[] assigned = new boolean[board.getCells()];
+        for (int cell = 0; cell < board.getCells(); cell++) {
+            if (board.isFilled(cell)) {
+                assigned[cell] = true;
             }
         }
         for (Snake snake : snakes) {
             if (snake.equals(you()) || snake.length() <= 1) continue;
             Point head = snake.getHead();
             Point neck = snake.getBody().get(1);
-            Point delta = head.delta(neck);
+            int dx = head.getX() - neck.getX();
+            int dy = head.getY() - neck.getY();
             for (int i = 1; i <= 2; i++) {
-                fill(new Point(head.getX() + delta.getX() * i, head.getY() + delta.getY() * i));
+                int x = head.getX() + dx * i;
+                int y = head.getY() + dy * i;
+                if (!grid.exists(x, y)) continue;
+                regions[grid.index(x, y)] = 0;
+                assigned[grid.index(x, y)] = true;
             }
         }
-        Exit condition = new Exit() {
-            public boolean shouldExit(MovePoint point, Point initial) {
-                return false;
-            }
-
-            public List<MovePoint> onFailure(List<MovePoint> path) {
-                return path;
-            }
-        };
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                if (regions[x][y] != null) continue;
-                List<MovePoint> region = floodFill(new Point(x, y), condition, false);
-                for (MovePoint point : region) {
-                    regions[point.getPoint().getX()][point.getPoint().getY()] = region.size();
-                }
+        long[] passable = board.passable(board.newMask(), false);
+        long[] region = board.newMask();
+        for (int cell = 0; cell < board.getCells(); cell++) {
+            if (assigned[cell]) continue;
+            int size = board.floodFill(cell, passable, region);
+            for (int other = BitBoard.nextSetBit(region, 0); other >= 0; other = BitBoard.nextSetBit(region, other + 1)) {
+                regions[other] = size;
+                assigned[other] = true;
             }
         }
     }
 
-    public int regionSize(Point point) {
-        if (!exists(point)) return 0;
-        return regions[point.getX()][point.getY()];
+    public int regionSize(int cell) {
+        if (cell == Grid.NONE) return 0;
+        return regions[cell];
     }
 
-
-    public boolean exists(Point point) {
-        if (point.getX() < 0) return false;
-        if (point.getY() < 0) return false;
-        if (point.getX() > getWidth() - 1) return false;
-        if (point.getY() > getHeight() - 1) return false;
-        return true;
-    }
-
-    private List<Point> findAdjacent(Point point) {
-        return new ArrayList<>(Move.adjacent(point).values());
+    public boolean exists(int x, int y) {
+        return grid.exists(x, y);
     }
 
-    private List<Point> findHeads() {
-        ArrayList<Point> list = new ArrayList<>();
+    // cells next to every head we are longer than, and the heads themselves
+    private long[] findHeads() {
+        long[] heads = board.newMask();
         for (Snake snake : snakes) {
             if (!snake.equals(you()) && you.longerThan(snake)) {
-                list.addAll(findAdjacent(snake.getBody().get(0)));
-                list.add(snake.getHead());
+                int head = grid.index(snake.getHead());
+                addAdjacent(heads, head);
+                BitBoard.set(heads, head);
             }
         }
-        return list;
-
-    }
-
-    protected Move findPath(List<Point> destinations, Point point) {
-        return findPath(destinations, point, true);
+        return heads;
     }
 
-    protected Move findPath(List<Point> destinations, Point point, boolean checkBox) {
-        for (int i = 0; i < destinations.size(); i++) {
-            if (destinations.get(i).equals(point)) {
-                destinations.remove(i);
-                i--;
-            }
+    private void addAdjacent(long[] cells, int cell) {
+        for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+            int next = grid.neighbour(cell, direction);
+            if (next != Grid.NONE) BitBoard.set(cells, next);
         }
-        Exit condition = new Exit() {
-            public boolean shouldExit(MovePoint point, Point initial) {
-                for (Point destination : destinations) {
-                    if (point.getPoint().equals(destination)) {
-                        int smallRegion = Math.max(IGNORE_SIZE, (int) Math.floor(you().length() / 2));
-                        Point newPoint = point.getInitialMove().translate(initial);
-                        int region = regionSize(newPoint);
-                        if (checkBox && region <= smallRegion) {
-                            return false;
-                        }
-                        return true;
-                    }
-                }
-                return false;
-            }
-
-            public List<MovePoint> onFailure(List<MovePoint> path) {
-                return new ArrayList<MovePoint>();
-            }
-        };
-        List<MovePoint> path = floodFill(point, condition, true);
-        if (path.isEmpty()) return null;
-        return path.get(path.size() - 1).getInitialMove();
-    }
-
-
-    protected List<MovePoint> floodFill(Point point, Exit condition, boolean excludeDanger) {
-        LinkedList<MovePoint> points = new LinkedList<>();
-        ArrayList<MovePoint> list = new ArrayList<>();
-        ArrayList<MovePoint> visited = new ArrayList<>();
-
-        MovePoint loopPoint = new MovePoint(null, point, null);
-        points.add(loopPoint);
-        list.add(loopPoint);
-        while (!points.isEmpty()) {
-            loopPoint = points.pollFirst();
-            visited.add(loopPoint);
-            if (condition.shouldExit(loopPoint, point)) {
-                return visited;
-            }
-            List<MovePoint> moves = getPossibleMoves(loopPoint, excludeDanger);
-            for (MovePoint move : moves) {
-                move.setLength(loopPoint.getLength() + 1);
-                if (list.contains(move)) continue;
-                points.add(move);
-                list.add(move);
-            }
-        }
-        return condition.onFailure(visited);
     }
 
-    private List<MovePoint> getPossibleMoves(MovePoint point) {
-        return getPossibleMoves(point, true);
+    protected Move findPath(long[] destinations, int start) {
+        return findPath(destinations, start, true);
     }
 
-    private List<MovePoint> getPossibleMoves(MovePoint point, boolean excludeDanger) {
-        ArrayList<MovePoint> moves = new ArrayList<>();
-        Move initial = point.getInitialMove();
-        for (Map.Entry<Move, Point> move : Move.adjacent(point.getPoint()).entrySet()) {
-            if (movable(move.getValue(), excludeDanger)) {
-                moves.add(new MovePoint(
-                                move.getKey(),
-                                move.getValue(),
-                                initial != null ? initial : move.getKey()
-                        )
-                );
+    // breadth first search from start, returns the first move towards the nearest destination
+    protected Move findPath(long[] destinations, int start, boolean checkBox) {
+        BitBoard.clear(destinations, start);
+        int smallRegion = Math.max(IGNORE_SIZE, (int) Math.floor(you().length() / 2));
+
+        long[] visited = board.newMask();
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        initialMoves[start] = Grid.NONE;
+        BitBoard.set(visited, start);
+        while (head < tail) {
+            int cell = queue[head++];
+            if (BitBoard.test(destinations, cell)) {
+                int region = regionSize(grid.neighbour(start, initialMoves[cell]));
+                if (!checkBox || region > smallRegion) {
+                    return Grid.move(initialMoves[cell]);
+                }
+            }
+            for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+                int next = grid.neighbour(cell, direction);
+                if (next == Grid.NONE || BitBoard.test(visited, next) || !movable(next, true)) continue;
+                BitBoard.set(visited, next);
+                initialMoves[next] = cell == start ? direction : initialMoves[cell];
+                queue[tail++] = next;
             }
         }
-        return moves;
-    }
-
-
-    public boolean isFilled(Point point) {
-        return isFilled(point, board);
-    }
-
-    private boolean isFilled(Point point, TileType[][] board) {
-        if (!exists(point)) return true;
-        return board[point.getX()][point.getY()] != TileType.EMPTY
-                && board[point.getX()][point.getY()] != TileType.FOOD
-                && board[point.getX()][point.getY()] != TileType.TAIL
-                && board[point.getX()][point.getY()] != TileType.FAKE_WALL
-                && board[point.getX()][point.getY()] != TileType.HEADS;
-    }
-
-    private boolean movable(Point point) {
-        return !isFilled(point);
-    }
-
-    private boolean movable(Point point, boolean excludeDanger) {
-        return !isFilled(point)
-                && (excludeDanger ? !isDangerousSpotFilled(point) : true);
-    }
-
-    private boolean movable(Point point, TileType[][] board) {
-        return !isFilled(point, board);
+        return null;
     }
 
-    public boolean isDangerousSpotFilled(Point point) {
-        if (!exists(point)) return false;
-        return board[point.getX()][point.getY()] == TileType.FAKE_WALL;
+    public boolean isFilled(int cell) {
+        return isFilled(cell, board);
     }
 
-    private List<Move> getPossibleMoves(TileType[][] currentBoard, Point point) {
-        List<Move> moves = new ArrayList<>();
-        for (Map.Entry<Move, Point> move : Move.adjacent(point).entrySet()) {
-            if (movable(move.getValue(), currentBoard))
-                moves.add(move.getKey());
-        }
-        return moves;
+    private boolean isFilled(int cell, BitBoard board) {
+        if (cell == Grid.NONE) return true;
+        return board.isFilled(cell);
     }
 
-    private TileType[][] applyMove(Move move, Snake snake, TileType[][] currentBoard) {
-        TileType[][] board;
-        previousBoard.push(currentBoard);
-        board = clearSnakeOffBoard(snake, currentBoard);
-        snake.applyMove(move);
-        snakes.add(snake);
-        //fillIn();
-        return appendBoard(snake, board);
+    private boolean movable(int cell) {
+        return !isFilled(cell);
     }
 
-    private TileType[][] undoMove(Snake snake, TileType[][] currentBoard) {
-        TileType[][] board;
-        board = previousBoard.pop();
-        board = clearSnakeOffBoard(snake, board);
-        snake.undoMove();
-        snakes.add(snake);
-        //fillIn();
-        return appendBoard(snake, board);
+    private boolean movable(int cell, boolean excludeDanger) {
+        return !isFilled(cell)
+                && (excludeDanger ? !isDangerousSpotFilled(cell) : true);
     }
 
-    private double positionHeuristic(Snake snake, Snake enemy){
-        int smallRegion = Math.max(IGNORE_SIZE, (int) Math.floor(you().length() / 2));
-        int region = regionSize(snake.getHead());
-        double dist = (Point.distance(snake.getHead(), enemy.getHead())*0.15);
-        double center = Point.distance(snake.getHead(), new Point(width/2, height/2));
-
-        return (region) / center;
-    }
-
-    private double boardValue(Snake snake, Snake enemy, int depth) {
-        double value = NONE;
-        //base case
-        // System.out.println("Checking for Collisions");
-
-        if (Point.equals(snake.getHead(), enemy.getHead()) && snake.longerThan(enemy)) {
-            System.out.println("MAX: ENEMY HEAD - " + snake.getName());
-            value = Board.MAX;
-            return value;
-        } else if (Point.equals(snake.getHead(), enemy.getHead()) && enemy.longerThan(snake)) {
-            System.out.println("MIN: ENEMY HEAD - " + snake.getName());
-            value = Board.MIN;
-            return value;
-        }else if(depth == 3){
-            value = positionHeuristic(snake, enemy);
-            if(value == 0) value = Board.MIN;
-            //System.out.println("Heuristic: " + value);
-            return value;
-        }
-
-        return value;
+    public boolean isDangerousSpotFilled(int cell) {
+        if (cell == Grid.NONE) return false;
+        return board.isDanger(cell);
     }
 
-    private MoveValue minimax(TileType[][] board, int depth, Snake snake, Snake enemy, double alpha, double beta) {
-
-        boolean isMaximizing = (depth % 2 == 0);
-
-        MoveValue returnMove;
-        MoveValue bestMove = new MoveValue();
-
-        snakes.remove(snake);
-        snakes.remove(enemy);
-
-        //Iterate through possible moves
-        if (isMaximizing) {
-            double value = boardValue(snake, enemy, depth);
-            if (value != NONE || depth == 3) {
-                return new MoveValue(value);
-            }
-            //System.out.println("MAXIMIZING");
-            List<Move> moves = getPossibleMoves(board, snake.getHead());
-            Iterator<Move> movesIterator = moves.iterator();
-            while (movesIterator.hasNext()) {
-                Move currentMove = movesIterator.next();
-                //System.out.println(depth + " Start Position : " + snake.getHead().getX() + ", " + snake.getHead().getY());
-                board = applyMove(currentMove, snake, board);
-                // System.out.println("End Position: " + snake.getHead().getX() + ", " + snake.getHead().getY());
-                returnMove = minimax(board, depth + 1, snake, enemy, alpha, beta);
-                board = undoMove(snake, board);
-                if ((bestMove == null) || (bestMove.returnValue < returnMove.returnValue)) {
-                    bestMove = returnMove;
-                    bestMove.returnMove = currentMove;
-                }
-                if (returnMove.returnValue > alpha) {
-                    alpha = returnMove.returnValue;
-                    bestMove = returnMove;
-                }
-                if (beta <= alpha) {
-                    //System.out.println("Beta <= Alpha: " + beta + ", " + alpha);
-                    bestMove.returnValue = beta;
-                    bestMove.returnMove = null;
-                    return bestMove; // pruning
-                }
-            }
-            return bestMove;
-        } else {
-            // System.out.println("MINIMIZING");
-            double value = boardValue(enemy, snake, depth);
-            if (value != NONE || depth == 3) {
-                return new MoveValue(value);
-            }
-            List<Move> moves = getPossibleMoves(board, enemy.getHead());
-            Iterator<Move> movesIterator = moves.iterator();
-            while (movesIterator.hasNext()) {
-                Move currentMove = movesIterator.next();
-                //System.out.println(depth + " Start Position : " + enemy.getHead().getX() + ", " + enemy.getHead().getY());
-                board = applyMove(currentMove, enemy, board);
-                // System.out.println("End Position: " + enemy.getHead().getX() + ", " + enemy.getHead().getY());
-                returnMove = minimax(board, depth + 1, snake, enemy, alpha, beta);
-                board = undoMove(enemy, board);
-                if ((bestMove == null) || (bestMove.returnValue > returnMove.returnValue)) {
-                    bestMove = returnMove;
-                    bestMove.returnMove = currentMove;
-                }
-                if (returnMove.returnValue < beta) {
-                    beta = returnMove.returnValue;
-                    bestMove = returnMove;
-                }
-                if (beta <= alpha) {
-                    //System.out.println("Beta <= Alpha: " + beta + ", " + alpha);
-                    bestMove.returnValue = alpha;
-                    bestMove.returnMove = null;
-                    return bestMove; // pruning
-                }
-            }
-            return bestMove;
+    public Move findFood(int current) {
+        long[] destinations = board.newMask();
+        for (Point snack : food) {
+            BitBoard.set(destinations, grid.index(snack));
         }
+        return findPath(destinations, current);
     }
 
-    public Move moveSmart(Snake enemy) {
-        return minimax(board, 0, you, enemy, Board.MIN, Board.MAX).returnMove;
-    }
-
-    public Move findFood(Point current) {
-        return findPath(food, current);
-    }
-
-    public Move moveAggressive(Point current) {
+    public Move moveAggressive(int current) {
         return findPath(findHeads(), current);
     }
 
-    public Move goToTail(Point currentPoint) {
+    public Move goToTail(int current) {
         Move move = null;
+        long[] destinations = board.newMask();
         for (int i = you().getBody().size() - 1; i > 0; i--) {
-            move = findPath(findAdjacent(you().getBody().get(i)), currentPoint, false);
+            Arrays.fill(destinations, 0);
+            addAdjacent(destinations, grid.index(you().getBody().get(i)));
+            move = findPath(destinations, current, false);
             if (move != null) return move;
         }
         return null;
     }
 
 
-    public void printBoard(TileType[][] board) {
+    public void printBoard(BitBoard board) {
         System.out.println("----------------------------");
         for (int i = 0; i < height; i++) {
             for (int j = 0; j < width; j++) {
-                if (board[j][i] == TileType.WALL) System.out.print("W, ");
-                if (board[j][i] == TileType.ME) System.out.print("ME, ");
-                if (board[j][i] == TileType.EMPTY) System.out.print("E, ");
-                if (board[j][i] == TileType.HEADS) System.out.print("H, ");
-                if (board[j][i] == TileType.TAIL) System.out.print("T, ");
-                if (board[j][i] == TileType.FOOD) System.out.print("F, ");
+                int cell = board.index(j, i);
+                if (board.isHead(cell)) System.out.print("H, ");
+                else if (board.isTail(cell)) System.out.print("T, ");
+                else if (board.isOccupied(cell)) System.out.print("W, ");
+                else if (board.isFood(cell)) System.out.print("F, ");
+                else System.out.print("E, ");
             }
             System.out.println();
         }
@@ -484,7 +238,7 @@ public class Board {
     public void printHeuristics(){
         for (int i = 0; i < height; i++) {
             for (int j = 0; j < width; j++) {
-                System.out.print(regions[i][j] + ", ");
+                System.out.print(regions[board.index(j, i)] + ", ");
             }
             System.out.println();
         }
@@ -492,8 +246,9 @@ public class Board {
 
     public void init(Snake you) {
         this.you = you;
-        previousBoard = new Stack<>();
         this.board = setupBoard(this.board);
+        this.queue = new int[board.getCells()];
+        this.initialMoves = new int[board.getCells()];
         fillIn();
     }
 
@@ -517,7 +272,7 @@ public class Board {
         this.height = height;
     }
 
-    public TileType[][] getBoard() {
+    public BitBoard getBoard() {
         return this.board;
     }
 
@@ -1,15 +1,14 @@
 package com.battlesnake.board;
 
 import com.battlesnake.data.Move;
+import com.battlesnake.data.MoveFrame;
 import com.battlesnake.data.Snake;
 import com.battlesnake.math.Point;
-import com.battlesnake.pathfinding.Pathfinding;
+import com.battlesnake.session.GameSession;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
 
 public class BoardGame {
 
@@ -19,123 +18,248 @@ public class BoardGame {
     private final int TILE_WIDTH = 1;
     private final int TILE_HEIGHT = 1;
 
-    // Pathfinding
-    private Pathfinding pathfinding;
+    // distances to food, tails, heads and the center, worked out once a turn
+    private DistanceFields fields;
+    private int[] sources;
+
+    // when each body cell empties, and the cells we can get into in time, from our head
+    private FreeTimes freeTimes;
+    private long[] reachable;
 
     // my snake
     private Snake mySnake;
 
-    // board data
+    // the board as read, and the objects bound from it or built from it when asked for
+    private MoveFrame frame;
     private List<Snake> snakes;
     private List<Snake> deadSnakes;
     private List<Point> food;
 
-    private Tile[][] board;
+    private BitBoard board;
+    private Grid grid;
 
     public void init(Snake mySnake) {
         this.mySnake = mySnake;
-        this.pathfinding = new Pathfinding();
+        this.frame = MoveFrame.of(width, height, snakes, food, mySnake);
         setupBoard();
+        this.fields = new DistanceFields(grid);
+        this.freeTimes = new FreeTimes(grid);
+        stampFreeTimes();
+    }
+
+    public void init(Snake mySnake, GameSession session) {
+        init(MoveFrame.of(width, height, snakes, food, mySnake), session);
+    }
+
+    // reuses the game's board and distance fields instead of allocating them again, and
+    // when the last turn's board is still intact only stamps what changed since then. The
+    // caller holds the session, see SessionRegistry.acquire
+    public void init(MoveFrame frame, GameSession session) {
+        this.frame = frame;
+        this.width = frame.getWidth();
+        this.height = frame.getHeight();
+        this.fields = session.getDistanceFields();
+        fields.invalidate();
+        this.board = session.getBoard();
+        this.grid = board.getGrid();
+
+        BoardSnapshot last = session.beginTurn();
+        if (last == null || !updateBoard(last)) {
+            setupBoard();
+        }
+        session.setLastTurn(snapshot());
+        this.freeTimes = session.getFreeTimes();
+        stampFreeTimes();
+    }
+
+    private void stampFreeTimes() {
+        freeTimes.clear();
+        for (int snake = 0; snake < frame.getSnakeCount(); snake++) {
+            freeTimes.stamp(frame, snake);
+        }
+        reachable = null;
+    }
+
+    // what the distance fields route through: the passable cells, and the bodies our head can
+    // only get to after they have moved on
+    private long[] reachable() {
+        if (reachable == null) {
+            long[] passable = board.passable(board.newMask(), true);
+            reachable = freeTimes.open(board, passable, frame.head(frame.getYou()), board.newMask());
+        }
+        return reachable;
     }
 
     private void setupBoard() {
         if (board == null)
-            board = new Tile[width][height];
+            board = new BitBoard(width, height);
+        grid = board.getGrid();
+
+        board.clear();
+
+        for (int i = 0; i < frame.getFoodCount(); i++) {
+            board.setFood(frame.food(i));
+        }
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                board[x][y] = new Tile(TileType.EMPTY, x, y);
+        for (int snake = 0; snake < frame.getSnakeCount(); snake++) {
+            for (int i = 0; i < frame.length(snake); i++) {
+                stampSegment(snake, i, frame.cell(snake, i));
             }
+            stampHead(snake);
         }
+        stampDanger();
+    }
 
-        for (Point snack : food) {
-            board[snack.getX()][snack.getY()] = new Tile(TileType.FOOD, snack.getX(), snack.getY());
+    // the last turn's board plus the difference, false when this turn doesn't follow from the last
+    private boolean updateBoard(BoardSnapshot last) {
+        int count = frame.getSnakeCount();
+        if (last.bodies.size() != count) return false;
+        for (int snake = 0; snake < count; snake++) {
+            if (!follows(last.bodies.get(frame.getId(snake)), snake)) return false;
         }
 
-        for (Snake snake : snakes) {
-            List<Point> body = snake.getBody();
-            Point head = body.get(0);
-            for (int i = 0; i < body.size(); i++) {
-                if ((i == body.size() - 1)
-                        && body.size() > 1
-                        && !snake.justAte()) {
-                    board[body.get(i).getX()][body.get(i).getY()] = new Tile(TileType.TAIL, body.get(i).getX(), body.get(i).getY());
-                } else {
-                    board[body.get(i).getX()][body.get(i).getY()] = new Tile(TileType.WALL, body.get(i).getX(), body.get(i).getY());
-                }
+        // the cells whose contents can have changed: both ends of every body, old and new
+        long[] touched = board.newMask();
+        for (int snake = 0; snake < count; snake++) {
+            int[] before = last.bodies.get(frame.getId(snake));
+            int length = frame.length(snake);
+            mark(touched, before[0]);
+            mark(touched, before[before.length - 1]);
+            mark(touched, frame.head(snake));
+            mark(touched, frame.tail(snake));
+            if (length > 1) mark(touched, frame.cell(snake, length - 2));
+        }
+        for (int i = 0; i < touched.length; i++) {
+            for (long bits = touched[i]; bits != 0; bits &= bits - 1) {
+                board.clearCell(i << 6 | Long.numberOfTrailingZeros(bits));
             }
+        }
 
-            if (snake.equals(getMySnake())) {
-                board[head.getX()][head.getY()] = new Tile(TileType.ME, head.getX(), head.getY());
-            } else {
-                board[head.getX()][head.getY()] = new Tile(TileType.HEADS, head.getX(), head.getY());
-
-                if (!getMySnake().longerThan(snake)) {
-                    List<Point> around = findAdjacent(head);
-                    for (Point point : around) {
-                        if (exists(point)) {
-                            if (board[point.getX()][point.getY()].getTileType() == TileType.EMPTY
-                                    || board[point.getX()][point.getY()].getTileType() == TileType.FOOD
-                                    || board[point.getX()][point.getY()].getTileType() == TileType.TAIL) {
-                                board[point.getX()][point.getY()].setTileType(TileType.FAKE_WALL);
-                            }
-                        }
-                    }
-                }
+        for (int cell : last.food) {
+            board.clearFood(cell);
+        }
+        for (int i = 0; i < frame.getFoodCount(); i++) {
+            board.setFood(frame.food(i));
+        }
+
+        for (int snake = 0; snake < count; snake++) {
+            for (int i = 0; i < frame.length(snake); i++) {
+                int cell = frame.cell(snake, i);
+                if (isMarked(touched, cell)) stampSegment(snake, i, cell);
             }
+            stampHead(snake);
         }
+        board.clearAllDanger();
+        stampDanger();
+        return true;
     }
 
-    // Checks if point exist within the bounds of the board
-    public boolean exists(Point point) {
-        if (point.getX() < 0) return false;
-        if (point.getY() < 0) return false;
-        if (point.getX() > getWidth() - 1) return false;
-        if (point.getY() > getHeight() - 1) return false;
+    // one move on from before: a new head next to the old one and the rest shifted down by one,
+    // with the tail doubled up when the snake grew
+    private boolean follows(int[] before, int snake) {
+        int length = frame.length(snake);
+        if (before == null || length == 0) return false;
+        if (length != before.length && length != before.length + 1) return false;
+        if (grid.distance(frame.head(snake), before[0]) != 1) return false;
+        for (int i = 1; i < length; i++) {
+            int expected = before[Math.min(i - 1, before.length - 1)];
+            if (frame.cell(snake, i) != expected) return false;
+        }
         return true;
     }
 
-    // Takes in a point and returns all adjacent points
-    private List<Point> findAdjacent(Point point) {
-        return new ArrayList<>(Move.adjacent(point).values());
+    // a tail doubled up on the segment before it, like on the first turns of a game, stays put
+    private void stampSegment(int snake, int i, int cell) {
+        int size = frame.length(snake);
+        if (i == size - 1 && size > 1 && !frame.justAte(snake) && frame.cell(snake, size - 2) != cell) {
+            board.setTail(cell);
+        } else {
+            board.setWall(cell);
+        }
     }
 
-    private boolean isFilled(Point point, Tile[][] board, boolean flag) {
-        if (!exists(point)) return true;
+    private void stampHead(int snake) {
+        int head = frame.head(snake);
+        if (snake == frame.getYou()) {
+            board.setWall(head);
+        } else {
+            board.setHead(head);
+        }
+    }
+
+    // next to the head of every enemy we don't outgrow, once all the bodies are down
+    private void stampDanger() {
+        int you = frame.getYou();
+        for (int snake = 0; snake < frame.getSnakeCount(); snake++) {
+            if (snake == you || you >= 0 && frame.length(you) > frame.length(snake)) continue;
+            int headCell = frame.head(snake);
+            for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+                int cell = grid.neighbour(headCell, direction);
+                if (cell != Grid.NONE && (!board.isOccupied(cell) || board.isTail(cell))) {
+                    board.setDanger(cell);
+                }
+            }
+        }
+    }
+
+    private BoardSnapshot snapshot() {
+        BoardSnapshot snapshot = new BoardSnapshot();
+        for (int snake = 0; snake < frame.getSnakeCount(); snake++) {
+            int[] cells = new int[frame.length(snake)];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = frame.cell(snake, i);
+            }
+            snapshot.bodies.put(frame.getId(snake), cells);
+        }
+        snapshot.food = new int[frame.getFoodCount()];
+        for (int i = 0; i < snapshot.food.length; i++) {
+            snapshot.food[i] = frame.food(i);
+        }
+        return snapshot;
+    }
+
+    private static void mark(long[] mask, int cell) {
+        mask[cell >>> 6] |= 1L << cell;
+    }
+
+    private static boolean isMarked(long[] mask, int cell) {
+        return (mask[cell >>> 6] >>> cell & 1L) != 0;
+    }
+
+    // Checks if point exist within the bounds of the board
+    public boolean exists(int x, int y) {
+        return grid.exists(x, y);
+    }
+
+    private boolean isFilled(int cell, BitBoard board, boolean flag) {
+        if (cell == Grid.NONE) return true;
 
         if(flag) {
-            return board[point.getX()][point.getY()].getTileType() != TileType.EMPTY
-                    && board[point.getX()][point.getY()].getTileType() != TileType.FOOD
-                    && board[point.getX()][point.getY()].getTileType() != TileType.TAIL
-                    && board[point.getX()][point.getY()].getTileType() != TileType.HEADS;
+            return board.isBlocked(cell);
         }else{
-            return board[point.getX()][point.getY()].getTileType() != TileType.EMPTY
-                    && board[point.getX()][point.getY()].getTileType() != TileType.FOOD
-                    && board[point.getX()][point.getY()].getTileType() != TileType.TAIL
-                    && board[point.getX()][point.getY()].getTileType() != TileType.HEADS
-                    && board[point.getX()][point.getY()].getTileType() != TileType.FAKE_WALL;
+            return board.isFilled(cell);
         }
     }
 
 
-    private boolean movable(Point point, boolean flag) {
-        return !isFilled(point, board, flag);
+    private boolean movable(int cell, boolean flag) {
+        return !isFilled(cell, board, flag);
     }
 
-    private List<Move> getPossibleMoves(Point point, boolean flag) {
+    private List<Move> getPossibleMoves(int cell, boolean flag) {
         List<Move> moves = new ArrayList<>();
-        for (Map.Entry<Move, Point> move : Move.adjacent(point).entrySet()) {
-            if (movable(move.getValue(), flag))
-                moves.add(move.getKey());
+        for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+            if (movable(grid.neighbour(cell, direction), flag))
+                moves.add(Grid.move(direction));
         }
         return moves;
     }
 
-    private Move findBestPossibleMove(Point point){
+    private Move findBestPossibleMove(int cell){
 
-        List<Move> moves = getPossibleMoves(point, false);
+        List<Move> moves = getPossibleMoves(cell, false);
         if(moves.size() < 1) {
-            moves = getPossibleMoves(point, true);
+            moves = getPossibleMoves(cell, true);
         }
 
         if(moves.size() < 1) return Move.UP;
@@ -144,8 +268,6 @@ public class BoardGame {
         int smallest = 999999;
         int score = 0;
         for(Move move:moves){
-            Point p = move.translate(point);
-            Tile t = board[p.getX()][p.getY()];
             score = 0;
             System.out.println("SCORE: " + score);
             if(score < smallest){
@@ -157,62 +279,91 @@ public class BoardGame {
     }
 
 
-    private Move moveToTile(Tile tile, Point point) {
-        Point p = new Point(tile.getX(), tile.getY());
-        for (Map.Entry<Move, Point> move : Move.adjacent(point).entrySet()) {
-            if (p.equals(move.getValue())) return move.getKey();
+    // a legal move that costs next to nothing to find: off danger if possible, onto a free cell
+    // if not, and up when we are boxed in anyway
+    public Move safeMove(int current) {
+        Move free = null;
+        for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+            int cell = grid.neighbour(current, direction);
+            if (cell == Grid.NONE || board.isFilled(cell)) continue;
+            if (!board.isDanger(cell)) return Grid.move(direction);
+            if (free == null) free = Grid.move(direction);
         }
-        return null;
-    }
-
-    private Point nearestFood(Point current) {
-        int min = 1000;
-        int dist = 0;
-        Point found = food.get(0);
-        for (Point snack : food) {
-            dist = Math.abs((width / 2) - snack.getX()) + (Math.abs((height / 2) - snack.getY()));
-            if (dist < min) {
-                min = dist;
-                found = snack;
+        return free == null ? Move.UP : free;
+    }
+
+    // the legal move with the most room behind it, counted by a flood fill that keeps off danger
+    // and counts the bodies that will have moved on by the time it gets to them
+    public Move floodFillMove(int current) {
+        long[] passable = board.passable(board.newMask(), true);
+        long[] region = board.newMask();
+        Move best = null;
+        int most = -1;
+        for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+            int cell = grid.neighbour(current, direction);
+            if (cell == Grid.NONE || !freeTimes.enterable(board, passable, cell, 1)) continue;
+            int room = freeTimes.reach(board, passable, cell, 1, region);
+            if (room > most) {
+                most = room;
+                best = Grid.move(direction);
             }
         }
-        return found;
+        return best == null ? safeMove(current) : best;
     }
 
-    public Move findFood(Point current) {
-        List<Tile> path = pathfinding.getRoute(board, current, nearestFood(current));
-        if (path.size() <= 1) return null;
-        Move move = moveToTile(path.get(path.size() - 2), current);
-        return move;
+    // the nearest piece of food
+    public Move findFood(int current) {
+        if (!fields.isComputed(DistanceFields.Goal.FOOD)) {
+            int count = frame.getFoodCount();
+            for (int i = 0; i < count; i++) {
+                sources()[i] = frame.food(i);
+            }
+            fields.compute(DistanceFields.Goal.FOOD, reachable(), sources, count);
+        }
+        return fields.nextStep(DistanceFields.Goal.FOOD, current);
     }
 
-    public Move findTail(Point current) {
-        List<Tile> path = pathfinding.getRoute(board, current, mySnake.getTail());
-        if (path.size() <= 1) return null;
-        Move move = moveToTile(path.get(path.size() - 2), current);
-
-        return move;
+    // the nearest tail, ours or anyone's, they all move out of the way
+    public Move findTail(int current) {
+        if (!fields.isComputed(DistanceFields.Goal.TAILS)) {
+            int count = frame.getSnakeCount();
+            for (int snake = 0; snake < count; snake++) {
+                sources()[snake] = frame.tail(snake);
+            }
+            fields.compute(DistanceFields.Goal.TAILS, reachable(), sources, count);
+        }
+        return fields.nextStep(DistanceFields.Goal.TAILS, current);
     }
 
-    public Move findHead(Point current, Snake enemy) {
-        if (enemy == null || enemy.longerThan(mySnake)) return findTail(current);
-        List<Tile> path = pathfinding.getRoute(board, current, enemy.getHead());
-        if (path.size() <= 1) return null;
-        Move move = moveToTile(path.get(path.size() - 2), current);
-
-        return move;
+    // the nearest head we can win against, or our tail when the enemy is longer
+    public Move findHead(int current, Snake enemy) {
+        int you = frame.getYou();
+        if (enemy == null || enemy.longerThan(frame.length(you))) return findTail(current);
+        if (!fields.isComputed(DistanceFields.Goal.HEADS)) {
+            int count = 0;
+            for (int snake = 0; snake < frame.getSnakeCount(); snake++) {
+                if (snake == you || frame.length(snake) > frame.length(you)) continue;
+                sources()[count++] = frame.head(snake);
+            }
+            fields.compute(DistanceFields.Goal.HEADS, reachable(), sources, count);
+        }
+        return fields.nextStep(DistanceFields.Goal.HEADS, current);
     }
 
-    public Move findCenter(Point current) {
-        Point center = new Point(width / 2, height / 2);
-        List<Tile> path = pathfinding.getRoute(board, current, center);
-        if (path.size() <= 1) return null;
-        Move move = moveToTile(path.get(path.size() - 2), current);
+    public Move findCenter(int current) {
+        if (!fields.isComputed(DistanceFields.Goal.CENTER)) {
+            sources()[0] = grid.index(width / 2, height / 2);
+            fields.compute(DistanceFields.Goal.CENTER, reachable(), sources, 1);
+        }
+        return fields.nextStep(DistanceFields.Goal.CENTER, current);
+    }
 
-        return move;
+    private int[] sources() {
+        if (sources == null) sources = new int[grid.getCells()];
+        return sources;
     }
 
-    public Move findExit(Point current) {
+    public Move findExit(int current) {
        // return findBestPossibleMove(current);
 
         System.out.println("FINDING EXIT");
@@ -242,6 +393,7 @@ public class BoardGame {
     }
 
     public Snake getMySnake() {
+        if (mySnake == null && frame != null) mySnake = frame.you();
         return mySnake;
     }
 
@@ -250,6 +402,7 @@ public class BoardGame {
     }
 
     public List<Snake> getSnakes() {
+        if (snakes == null && frame != null) snakes = frame.snakes();
         return snakes;
     }
 
@@ -267,6 +420,7 @@ public class BoardGame {
 
     @JsonProperty("food")
     public List<Point> getFood() {
+        if (food == null && frame != null) food = frame.foodPoints();
         return food;
     }
 
@@ -274,13 +428,13 @@ public class BoardGame {
         this.food = food;
     }
 
-    public Tile[][] getBoard(){ return board;}
+    public BitBoard getBoard(){ return board;}
 
     public int longestSnake() {
         int len = 0;
-        for (Snake s : snakes) {
-            if (s.length() > len && !s.equals(mySnake)) {
-                len = s.length();
+        for (int snake = 0; snake < frame.getSnakeCount(); snake++) {
+            if (frame.length(snake) > len && snake != frame.getYou()) {
+                len = frame.length(snake);
             }
         }
         return len;
@@ -0,0 +1,14 @@
+package com.battlesnake.board;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * What the board was built from on a game's last turn: every snake's body as cells, keyed by
+ * snake id, and the food. The next turn is checked against it to stamp only what changed.
+ */
+public class BoardSnapshot {
+
+    final Map<String, int[]> bodies = new HashMap<>();
+    int[] food = new int[0];
+}
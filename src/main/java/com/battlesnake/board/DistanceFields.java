@@ -0,0 +1,265 @@
+package com.battlesnake.board;
+
+import com.battlesnake.data.Move;
+
+import java.util.Arrays;
+
+/*
+ * Distance fields: for each kind of goal, every cell's distance to the nearest goal of that
+ * kind. The next step towards a goal is then the neighbour with the smallest distance, with
+ * no search of its own.
+ *
+ * Fields are worked out the first time they are asked for on a turn and kept until the board
+ * changes, in arrays that are allocated once for the size of the board. The first time, or
+ * when too much has changed, a field is one breadth first search from all of its goals at
+ * once. After that it is repaired: the cells whose passability changed and the goals that
+ * came and went since the field was last computed are fed to LPA*, which only touches the
+ * cells whose distance they change. From one turn to the next that is the moved heads, the
+ * vacated tails and the eaten food, and whatever was routed through them.
+ */
+public class DistanceFields {
+
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    // past this many changed cells a fresh search is cheaper than a repair
+    private static final int MAX_REPAIR_DIVISOR = 4;
+
+    public enum Goal {
+        FOOD,
+        TAILS,
+        HEADS,
+        CENTER
+    }
+
+    private final Grid grid;
+    private final int[][] distances;
+    private final boolean[] computed = new boolean[Goal.values().length];
+    private final int[] queue;
+    private final long[] passable;
+
+    // what each field was last computed against, and its one step lookahead for LPA*
+    private final boolean[] repairable = new boolean[Goal.values().length];
+    private final long[][] lastPassable;
+    private final long[][] lastSources;
+    private final int[][] lookahead;
+    private final long[] sourceMask;
+
+    // LPA* open list, a binary heap on min(distance, lookahead)
+    private final int[] heap;
+    private final int[] position;
+    private int size;
+
+    public DistanceFields(Grid grid) {
+        this.grid = grid;
+        int cells = grid.getCells();
+        int words = (cells + 63) >>> 6;
+        distances = new int[Goal.values().length][cells];
+        lookahead = new int[Goal.values().length][cells];
+        lastPassable = new long[Goal.values().length][words];
+        lastSources = new long[Goal.values().length][words];
+        queue = new int[cells];
+        passable = new long[words];
+        sourceMask = new long[words];
+        heap = new int[cells];
+        position = new int[cells];
+        Arrays.fill(position, -1);
+    }
+
+    // the board changed, every field has to be worked out again
+    public void invalidate() {
+        Arrays.fill(computed, false);
+    }
+
+    public boolean isComputed(Goal goal) {
+        return computed[goal.ordinal()];
+    }
+
+    // sources that can't be entered are left out, cells that can't be reached stay UNREACHABLE
+    public void compute(Goal goal, BitBoard board, int[] sources, int count) {
+        compute(goal, board.passable(passable, true), sources, count);
+    }
+
+    // the same over the cells the caller says can be entered
+    public void compute(Goal goal, long[] cells, int[] sources, int count) {
+        int field = goal.ordinal();
+        if (cells != passable) System.arraycopy(cells, 0, passable, 0, passable.length);
+        Arrays.fill(sourceMask, 0);
+        for (int i = 0; i < count; i++) {
+            int cell = sources[i];
+            if (cell != Grid.NONE && BitBoard.test(passable, cell)) BitBoard.set(sourceMask, cell);
+        }
+
+        if (!repairable[field] || !repair(field)) search(field);
+        System.arraycopy(passable, 0, lastPassable[field], 0, passable.length);
+        System.arraycopy(sourceMask, 0, lastSources[field], 0, sourceMask.length);
+        repairable[field] = true;
+        computed[field] = true;
+    }
+
+    // breadth first from every source, which leaves each cell's lookahead equal to its distance
+    private void search(int field) {
+        int[] distance = distances[field];
+        Arrays.fill(distance, UNREACHABLE);
+
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < sourceMask.length; i++) {
+            for (long bits = sourceMask[i]; bits != 0; bits &= bits - 1) {
+                int cell = (i << 6) + Long.numberOfTrailingZeros(bits);
+                distance[cell] = 0;
+                queue[tail++] = cell;
+            }
+        }
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+                int next = grid.neighbour(cell, direction);
+                if (next == Grid.NONE || distance[next] != UNREACHABLE || !BitBoard.test(passable, next)) continue;
+                distance[next] = distance[cell] + 1;
+                queue[tail++] = next;
+            }
+        }
+        System.arraycopy(distance, 0, lookahead[field], 0, distance.length);
+    }
+
+    // false, with the field left as it was, when too many cells changed to be worth repairing
+    private boolean repair(int field) {
+        long[] passableBefore = lastPassable[field];
+        long[] sourcesBefore = lastSources[field];
+        int changed = 0;
+        for (int i = 0; i < passable.length; i++) {
+            changed += Long.bitCount((passable[i] ^ passableBefore[i]) | (sourceMask[i] ^ sourcesBefore[i]));
+        }
+        if (changed > grid.getCells() / MAX_REPAIR_DIVISOR) return false;
+
+        size = 0;
+        for (int i = 0; i < passable.length; i++) {
+            for (long bits = (passable[i] ^ passableBefore[i]) | (sourceMask[i] ^ sourcesBefore[i]); bits != 0; bits &= bits - 1) {
+                update(field, (i << 6) + Long.numberOfTrailingZeros(bits));
+            }
+        }
+
+        int[] distance = distances[field];
+        int[] rhs = lookahead[field];
+        while (size > 0) {
+            int cell = pop(field);
+            if (distance[cell] > rhs[cell]) {
+                // closer than it was, which can only bring its neighbours closer
+                distance[cell] = rhs[cell];
+                updateNeighbours(field, cell);
+            } else {
+                // further than it was, everything that went through it has to look again
+                distance[cell] = UNREACHABLE;
+                update(field, cell);
+                updateNeighbours(field, cell);
+            }
+        }
+        return true;
+    }
+
+    private void updateNeighbours(int field, int cell) {
+        for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+            int next = grid.neighbour(cell, direction);
+            if (next != Grid.NONE) update(field, next);
+        }
+    }
+
+    // works out the cell's lookahead again, and queues it if that no longer matches its distance
+    private void update(int field, int cell) {
+        int[] distance = distances[field];
+        int[] rhs = lookahead[field];
+        if (!BitBoard.test(passable, cell)) {
+            rhs[cell] = UNREACHABLE;
+        } else if (BitBoard.test(sourceMask, cell)) {
+            rhs[cell] = 0;
+        } else {
+            int best = UNREACHABLE;
+            for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+                int next = grid.neighbour(cell, direction);
+                if (next != Grid.NONE && distance[next] < best) best = distance[next];
+            }
+            rhs[cell] = best == UNREACHABLE ? UNREACHABLE : best + 1;
+        }
+
+        if (position[cell] >= 0) remove(field, cell);
+        if (distance[cell] != rhs[cell]) push(field, cell);
+    }
+
+    private int key(int field, int cell) {
+        return Math.min(distances[field][cell], lookahead[field][cell]);
+    }
+
+    private void push(int field, int cell) {
+        heap[size] = cell;
+        position[cell] = size;
+        up(field, size++);
+    }
+
+    private int pop(int field) {
+        int cell = heap[0];
+        remove(field, cell);
+        return cell;
+    }
+
+    private void remove(int field, int cell) {
+        int i = position[cell];
+        position[cell] = -1;
+        size--;
+        if (i == size) return;
+        int moved = heap[size];
+        heap[i] = moved;
+        position[moved] = i;
+        up(field, i);
+        down(field, position[moved]);
+    }
+
+    private void up(int field, int i) {
+        int cell = heap[i];
+        int key = key(field, cell);
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int above = heap[parent];
+            if (key(field, above) <= key) break;
+            heap[i] = above;
+            position[above] = i;
+            i = parent;
+        }
+        heap[i] = cell;
+        position[cell] = i;
+    }
+
+    private void down(int field, int i) {
+        int cell = heap[i];
+        int key = key(field, cell);
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && key(field, heap[child + 1]) < key(field, heap[child])) child++;
+            if (key(field, heap[child]) >= key) break;
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = cell;
+        position[cell] = i;
+    }
+
+    public int distance(Goal goal, int cell) {
+        return distances[goal.ordinal()][cell];
+    }
+
+    // the move from cell to the neighbour closest to the goal, null when no goal can be reached
+    public Move nextStep(Goal goal, int cell) {
+        int[] distance = distances[goal.ordinal()];
+        Move best = null;
+        int closest = UNREACHABLE;
+        for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+            int next = grid.neighbour(cell, direction);
+            if (next != Grid.NONE && distance[next] < closest) {
+                closest = distance[next];
+                best = Grid.move(direction);
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,89 @@
+package com.battlesnake.board;
+
+import com.battlesnake.data.MoveFrame;
+
+import java.util.Arrays;
+
+/*
+ * When each cell is free: how many moves from now it stays under a body, 0 for a cell that is
+ * empty already. A segment is gone once the tail has been pulled past it, and a snake that
+ * just ate keeps its tail one move longer.
+ *
+ * Something that gets to a cell arrival moves from now can go in when arrival >= freeAt, so a
+ * route can run through a body that will have moved on by then. That no snake eats again on
+ * the way is the same bet the board already makes on every tail.
+ */
+public class FreeTimes {
+
+    private final Grid grid;
+    private final int[] freeAt;
+    private final int[] arrival;
+    private final int[] queue;
+
+    public FreeTimes(Grid grid) {
+        this.grid = grid;
+        freeAt = new int[grid.getCells()];
+        arrival = new int[grid.getCells()];
+        queue = new int[grid.getCells()];
+    }
+
+    public void clear() {
+        Arrays.fill(freeAt, 0);
+    }
+
+    // stacked segments keep the cell until the last of them has gone
+    public void stamp(MoveFrame frame, int snake) {
+        int size = frame.length(snake);
+        int length = size + (frame.justAte(snake) ? 1 : 0);
+        for (int i = 0; i < size; i++) {
+            int cell = frame.cell(snake, i);
+            freeAt[cell] = Math.max(freeAt[cell], length - i);
+        }
+    }
+
+    public int freeAt(int cell) {
+        return freeAt[cell];
+    }
+
+    // passable already, or under a body that has moved on by the time we arrive and not next
+    // to a head that could take it first
+    public boolean enterable(BitBoard board, long[] passable, int cell, int arrival) {
+        if (BitBoard.test(passable, cell)) return true;
+        return freeAt[cell] > 0 && arrival >= freeAt[cell] && !board.isDanger(cell);
+    }
+
+    // out = passable plus every body that has moved on before anything from start could get to
+    // it. No route is shorter than the grid distance, so every route through out is in time
+    public long[] open(BitBoard board, long[] passable, int start, long[] out) {
+        System.arraycopy(passable, 0, out, 0, out.length);
+        for (int cell = 0; cell < freeAt.length; cell++) {
+            if (freeAt[cell] > 0 && cell != start && enterable(board, passable, cell, grid.distance(start, cell))) {
+                BitBoard.set(out, cell);
+            }
+        }
+        return out;
+    }
+
+    // flood fill from start, entered time moves from now, into region with start included.
+    // Getting somewhere later never closes it, so each cell only needs its earliest arrival
+    public int reach(BitBoard board, long[] passable, int start, int time, long[] region) {
+        Arrays.fill(region, 0);
+        BitBoard.set(region, start);
+        arrival[start] = time;
+        queue[0] = start;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int cell = queue[head++];
+            int next = arrival[cell] + 1;
+            for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+                int neighbour = grid.neighbour(cell, direction);
+                if (neighbour == Grid.NONE || BitBoard.test(region, neighbour) || !enterable(board, passable, neighbour, next)) continue;
+                BitBoard.set(region, neighbour);
+                arrival[neighbour] = next;
+                queue[tail++] = neighbour;
+            }
+        }
+        return tail;
+    }
+}
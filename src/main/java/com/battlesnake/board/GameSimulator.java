@@ -0,0 +1,187 @@
+package com.battlesnake.board;
+
+/*
+ * Applies one whole turn to a GameState the way the game server does, in place and with undo.
+ *
+ * Every living snake moves at once and loses a point of health. A snake whose head lands on
+ * food eats it: health goes back to full and its tail is doubled up, so it grows on the next
+ * move. Then snakes are eliminated: first those out of health or off the board, then, checked
+ * against everyone still standing, those whose head hit a body or lost a head-on collision
+ * (the longer snake survives, equal lengths both die). Eliminated snakes are taken off the board.
+ *
+ * The scratch space is sized for the state's snakes once, so a turn doesn't allocate.
+ */
+public class GameSimulator {
+
+    private final GameState state;
+    private final BitBoard board;
+    private final Grid grid;
+    private final Zobrist zobrist;
+
+    // per snake scratch for the turn in progress
+    private int[] target = new int[0];
+    private int[] oldHead = new int[0];
+    private int[] oldTail = new int[0];
+    private int[] oldHealth = new int[0];
+
+    public GameSimulator(GameState state) {
+        this.state = state;
+        this.board = state.getBoard();
+        this.grid = state.getGrid();
+        this.zobrist = state.getZobrist();
+    }
+
+    public GameState getState() {
+        return state;
+    }
+
+    // direction[i] is the move for snake i, ignored for snakes that are already dead
+    public void step(int[] directions) {
+        int snakeCount = state.getSnakeCount();
+        if (target.length < snakeCount) {
+            target = new int[snakeCount];
+            oldHead = new int[snakeCount];
+            oldTail = new int[snakeCount];
+            oldHealth = new int[snakeCount];
+        }
+
+        long moved = 0;
+        long outside = 0;
+        for (int i = 0; i < snakeCount; i++) {
+            if (!state.isAlive(i)) continue;
+            target[i] = grid.neighbour(state.getSnake(i).head(), directions[i]);
+            if (target[i] == Grid.NONE) outside |= 1L << i;
+            else moved |= 1L << i;
+        }
+        state.pushPly(moved);
+
+        for (int i = 0; i < snakeCount; i++) {
+            if ((moved & 1L << i) == 0) continue;
+            SnakeBody body = state.getSnake(i);
+            state.save(target[i]);
+            state.save(body.head());
+            state.save(body.tail());
+            if (body.length() > 1) state.save(body.get(body.length() - 2));
+        }
+
+        // move and feed
+        long ate = 0;
+        for (int i = 0; i < snakeCount; i++) {
+            if ((moved & 1L << i) == 0) continue;
+            SnakeBody body = state.getSnake(i);
+            int next = target[i];
+            oldHead[i] = body.head();
+            oldTail[i] = body.tail();
+            oldHealth[i] = body.health();
+            body.move(next, false);
+            if (board.isFood(next)) {
+                body.eat();
+                ate |= 1L << i;
+            }
+
+            state.toggle(zobrist.head(i, oldHead[i]) ^ zobrist.head(i, next));
+            state.toggle(zobrist.health(i, oldHealth[i]) ^ zobrist.health(i, body.health()));
+            // the head keeps a cell the tail still holds, a doubled up tail stays after the move
+            if (body.tail() == oldTail[i] || next != oldTail[i]) state.toggle(zobrist.segment(i, next));
+            if (vacated(i)) state.toggle(zobrist.segment(i, oldTail[i]));
+        }
+        state.ate(ate);
+
+        // the board, in an order that doesn't depend on who moved first
+        for (int i = 0; i < snakeCount; i++) {
+            if ((moved & 1L << i) != 0 && vacated(i)) board.clearCell(oldTail[i]);
+        }
+        for (int i = 0; i < snakeCount; i++) {
+            if ((moved & 1L << i) == 0) continue;
+            SnakeBody body = state.getSnake(i);
+            if (body.length() > 1) board.setWall(oldHead[i]);
+            if (body.length() > 1 && body.tail() != target[i]) stampTail(body);
+            if (board.isFood(target[i])) {
+                board.clearFood(target[i]);
+                state.toggle(zobrist.food(target[i]));
+            }
+        }
+        for (int i = 0; i < snakeCount; i++) {
+            if ((moved & 1L << i) != 0) stampHead(i, target[i]);
+        }
+        state.toggle(zobrist.sideToMove());
+
+        // eliminations
+        long died = outside;
+        for (int i = 0; i < snakeCount; i++) {
+            if ((moved & 1L << i) != 0 && state.getSnake(i).health() <= 0) died |= 1L << i;
+        }
+        long collided = 0;
+        for (int i = 0; i < snakeCount; i++) {
+            if ((moved & 1L << i) != 0 && (died & 1L << i) == 0 && collides(i, died)) collided |= 1L << i;
+        }
+        died |= collided;
+        if (died != 0) remove(died);
+    }
+
+    public void undo() {
+        state.unmakeMove();
+    }
+
+    // the old tail cell is free unless the body still ends there, or the head moved onto it
+    private boolean vacated(int snake) {
+        SnakeBody body = state.getSnake(snake);
+        return body.tail() != oldTail[snake] && target[snake] != oldTail[snake];
+    }
+
+    private boolean collides(int snake, long died) {
+        SnakeBody body = state.getSnake(snake);
+        int head = body.head();
+        for (int j = 0; j < state.getSnakeCount(); j++) {
+            if (!state.isAlive(j) || (died & 1L << j) != 0) continue;
+            SnakeBody other = state.getSnake(j);
+            if (j != snake && other.head() == head && other.length() >= body.length()) return true;
+            for (int i = 1; i < other.length(); i++) {
+                if (other.get(i) == head) return true;
+            }
+        }
+        return false;
+    }
+
+    // takes the dead off the board, then stamps the survivors again over anything they shared
+    private void remove(long died) {
+        int snakeCount = state.getSnakeCount();
+        for (int i = 0; i < snakeCount; i++) {
+            if ((died & 1L << i) == 0) continue;
+            SnakeBody body = state.getSnake(i);
+            for (int s = 0; s < body.length(); s++) {
+                int cell = body.get(s);
+                if (s == 0 || cell != body.get(s - 1)) {
+                    state.toggle(zobrist.segment(i, cell));
+                    state.save(cell);
+                    board.clearCell(cell);
+                }
+            }
+            state.toggle(zobrist.head(i, body.head()) ^ zobrist.health(i, body.health()));
+        }
+        state.kill(died);
+
+        for (int i = 0; i < snakeCount; i++) {
+            if (!state.isAlive(i)) continue;
+            SnakeBody body = state.getSnake(i);
+            for (int s = 1; s < body.length(); s++) {
+                state.save(body.get(s));
+                board.setWall(body.get(s));
+            }
+            if (body.length() > 1 && body.tail() != body.head()) stampTail(body);
+            state.save(body.head());
+            stampHead(i, body.head());
+        }
+    }
+
+    // a doubled up tail stays put next turn, so it's a wall rather than a tail
+    private void stampTail(SnakeBody body) {
+        if (body.get(body.length() - 2) == body.tail()) board.setWall(body.tail());
+        else board.setTail(body.tail());
+    }
+
+    private void stampHead(int snake, int cell) {
+        if (snake == state.getMe()) board.setWall(cell);
+        else board.setHead(cell);
+    }
+}
@@ -0,0 +1,270 @@
+package com.battlesnake.board;
+
+import com.battlesnake.data.MoveFrame;
+import com.battlesnake.data.Snake;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class GameState {
+
+    private final BitBoard board;
+    private final Grid grid;
+    private final Zobrist zobrist;
+    private long hash;
+
+    private SnakeBody[] snakes = new SnakeBody[0];
+    private String[] ids = new String[0];
+    private boolean[] alive = new boolean[0];
+    private int snakeCount;
+    private int me;
+
+    // one entry per move or turn made: the snakes that moved, ate and died, where its cells start in the cell log and the hash before it
+    private long[] plyMoved = new long[64];
+    private long[] plyAte = new long[64];
+    private long[] plyDied = new long[64];
+    private int[] plyStart = new int[64];
+    private long[] plyHash = new long[64];
+    private int ply;
+
+    // every cell a move touched, with its bits before the move
+    private int[] undoCells = new int[256];
+    private int[] undoStates = new int[256];
+    private int undoSize;
+
+    public GameState(BitBoard board) {
+        this.board = board;
+        this.grid = board.getGrid();
+        this.zobrist = Zobrist.of(grid);
+    }
+
+    // another state's position on a copy of its board, for a search on another thread. The
+    // other state has to be at its root, with no moves made on it
+    public GameState(BitBoard board, GameState other) {
+        this(board);
+        capacity(other.snakeCount);
+        snakeCount = other.snakeCount;
+        me = other.me;
+        for (int i = 0; i < snakeCount; i++) {
+            snakes[i].copyFrom(other.snakes[i]);
+            ids[i] = other.ids[i];
+            alive[i] = other.alive[i];
+        }
+        hash = other.hash;
+    }
+
+    // takes the snakes as they are stamped on the board
+    public void load(List<Snake> snakes, Snake you) {
+        capacity(snakes.size());
+        snakeCount = snakes.size();
+        me = -1;
+        for (int i = 0; i < snakeCount; i++) {
+            Snake snake = snakes.get(i);
+            this.snakes[i].reset(grid, snake.getBody(), snake.getHealth());
+            ids[i] = snake.getId();
+            alive[i] = true;
+            if (snake.equals(you)) me = i;
+        }
+        ply = 0;
+        undoSize = 0;
+        hash = zobrist.hash(this);
+    }
+
+    // the same, straight from the decoded request
+    public void load(MoveFrame frame) {
+        capacity(frame.getSnakeCount());
+        snakeCount = frame.getSnakeCount();
+        me = frame.getYou();
+        for (int i = 0; i < snakeCount; i++) {
+            snakes[i].reset(frame, i);
+            ids[i] = frame.getId(i);
+            alive[i] = true;
+        }
+        ply = 0;
+        undoSize = 0;
+        hash = zobrist.hash(this);
+    }
+
+    private void capacity(int count) {
+        if (snakes.length < count) {
+            SnakeBody[] bodies = Arrays.copyOf(snakes, count);
+            for (int i = snakes.length; i < bodies.length; i++) {
+                bodies[i] = new SnakeBody(grid.getCells() + 1);
+            }
+            snakes = bodies;
+            ids = Arrays.copyOf(ids, count);
+            alive = new boolean[count];
+        }
+    }
+
+    public int indexOf(Snake snake) {
+        if (snake == null) return -1;
+        for (int i = 0; i < snakeCount; i++) {
+            if (ids[i].equals(snake.getId())) return i;
+        }
+        return -1;
+    }
+
+    // the cell a snake's head lands on, or Grid.NONE when it leaves the board
+    public int target(int snake, int direction) {
+        return grid.neighbour(snakes[snake].head(), direction);
+    }
+
+    public void makeMove(int snake, int direction) {
+        SnakeBody body = snakes[snake];
+        int next = grid.neighbour(body.head(), direction);
+        int oldHead = body.head();
+        int oldTail = body.tail();
+        int oldHealth = body.health();
+        boolean grow = board.isFood(next);
+
+        pushPly(1L << snake);
+        save(next);
+        save(oldHead);
+        save(oldTail);
+        if (!grow && body.length() > 1) save(body.get(body.length() - 2));
+
+        body.move(next, grow);
+
+        if (grow) board.clearFood(next);
+        // a doubled up tail stays where it was, even when the head has just moved onto it
+        boolean vacated = !grow && body.tail() != oldTail;
+        if (vacated && next != oldTail) board.clearCell(oldTail);
+        if (body.length() > 1) board.setWall(oldHead);
+        // a doubled up tail stays put next move too, the same as one that has just eaten
+        if (body.length() > 1 && body.tail() != next) {
+            if (body.justAte() || body.get(body.length() - 2) == body.tail()) board.setWall(body.tail());
+            else board.setTail(body.tail());
+        }
+        if (snake == me) board.setWall(next);
+        else board.setHead(next);
+        if (snake != me && beatsMe(snake)) moveDanger(oldHead, next);
+
+        hash ^= zobrist.head(snake, oldHead) ^ zobrist.head(snake, next);
+        hash ^= zobrist.health(snake, oldHealth) ^ zobrist.health(snake, body.health());
+        if (!vacated || next != oldTail) hash ^= zobrist.segment(snake, next);
+        if (vacated && next != oldTail) hash ^= zobrist.segment(snake, oldTail);
+        if (grow) hash ^= zobrist.food(next);
+        hash ^= zobrist.sideToMove();
+    }
+
+    // the cells around a head that beats us move with it, the undo log puts them back
+    private void moveDanger(int from, int to) {
+        for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+            int cell = grid.neighbour(from, direction);
+            if (cell == Grid.NONE || !board.isDanger(cell) || threatened(cell)) continue;
+            save(cell);
+            board.clearDanger(cell);
+        }
+        for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+            int cell = grid.neighbour(to, direction);
+            if (cell == Grid.NONE || board.isDanger(cell)) continue;
+            if (board.isOccupied(cell) && !board.isTail(cell)) continue;
+            save(cell);
+            board.setDanger(cell);
+        }
+    }
+
+    private boolean beatsMe(int snake) {
+        return me >= 0 && alive[snake] && snakes[snake].length() >= snakes[me].length();
+    }
+
+    // whether some other head that beats us is still next to the cell
+    private boolean threatened(int cell) {
+        for (int i = 0; i < snakeCount; i++) {
+            if (i == me || !beatsMe(i)) continue;
+            if (grid.distance(snakes[i].head(), cell) == 1) return true;
+        }
+        return false;
+    }
+
+    // undoes the last move or turn
+    public void unmakeMove() {
+        int start = plyStart[--ply];
+        hash = plyHash[ply];
+        long moved = plyMoved[ply];
+        long ate = plyAte[ply];
+        long died = plyDied[ply];
+        for (int i = 0; i < snakeCount; i++) {
+            if ((ate & 1L << i) != 0) snakes[i].uneat();
+            if ((moved & 1L << i) != 0) snakes[i].undo();
+            if ((died & 1L << i) != 0) alive[i] = true;
+        }
+        while (undoSize > start) {
+            undoSize--;
+            board.restoreCell(undoCells[undoSize], undoStates[undoSize]);
+        }
+    }
+
+    // the hooks GameSimulator applies a whole turn with, recorded like any other move
+    void pushPly(long moved) {
+        if (ply == plyMoved.length) {
+            plyMoved = Arrays.copyOf(plyMoved, ply * 2);
+            plyAte = Arrays.copyOf(plyAte, ply * 2);
+            plyDied = Arrays.copyOf(plyDied, ply * 2);
+            plyStart = Arrays.copyOf(plyStart, ply * 2);
+            plyHash = Arrays.copyOf(plyHash, ply * 2);
+        }
+        plyMoved[ply] = moved;
+        plyAte[ply] = 0;
+        plyDied[ply] = 0;
+        plyHash[ply] = hash;
+        plyStart[ply++] = undoSize;
+    }
+
+    void ate(long ate) {
+        plyAte[ply - 1] = ate;
+    }
+
+    void kill(long died) {
+        plyDied[ply - 1] = died;
+        for (int i = 0; i < snakeCount; i++) {
+            if ((died & 1L << i) != 0) alive[i] = false;
+        }
+    }
+
+    void toggle(long key) {
+        hash ^= key;
+    }
+
+    Zobrist getZobrist() {
+        return zobrist;
+    }
+
+    void save(int cell) {
+        if (undoSize == undoCells.length) {
+            undoCells = Arrays.copyOf(undoCells, undoSize * 2);
+            undoStates = Arrays.copyOf(undoStates, undoSize * 2);
+        }
+        undoCells[undoSize] = cell;
+        undoStates[undoSize++] = board.cellState(cell);
+    }
+
+    public BitBoard getBoard() {
+        return board;
+    }
+
+    public Grid getGrid() {
+        return grid;
+    }
+
+    public SnakeBody getSnake(int snake) {
+        return snakes[snake];
+    }
+
+    public boolean isAlive(int snake) {
+        return alive[snake];
+    }
+
+    public int getSnakeCount() {
+        return snakeCount;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public int getMe() {
+        return me;
+    }
+}
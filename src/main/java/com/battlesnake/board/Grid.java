@@ -0,0 +1,131 @@
+package com.battlesnake.board;
+
+import com.battlesnake.data.Move;
+import com.battlesnake.math.Point;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public final class Grid {
+
+    public static final int NONE = -1;
+    public static final int DIRECTIONS = 4;
+
+    private static final Move[] MOVES = Move.values();
+
+    // one table per board size, shared by every request
+    private static final ConcurrentMap<Integer, Grid> GRIDS = new ConcurrentHashMap<>();
+
+    private final int width;
+    private final int height;
+    private final int cells;
+
+    // neighbours[cell * 4 + move.ordinal()], NONE when the move leaves the board
+    private final int[] neighbours;
+
+    private Grid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cells = width * height;
+        this.neighbours = new int[cells * DIRECTIONS];
+
+        for (int cell = 0; cell < cells; cell++) {
+            int x = cell % width;
+            int y = cell / width;
+            for (Move move : MOVES) {
+                int nextX = x;
+                int nextY = y;
+                switch (move) {
+                    case UP:
+                        nextY++;
+                        break;
+                    case DOWN:
+                        nextY--;
+                        break;
+                    case LEFT:
+                        nextX--;
+                        break;
+                    default:
+                        nextX++;
+                }
+                neighbours[cell * DIRECTIONS + move.ordinal()] = exists(nextX, nextY) ? index(nextX, nextY) : NONE;
+            }
+        }
+    }
+
+    public static Grid of(int width, int height) {
+        Integer key = (width << 16) | height;
+        Grid grid = GRIDS.get(key);
+        if (grid == null) {
+            grid = new Grid(width, height);
+            Grid existing = GRIDS.putIfAbsent(key, grid);
+            if (existing != null) grid = existing;
+        }
+        return grid;
+    }
+
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    public int index(Point point) {
+        return index(point.getX(), point.getY());
+    }
+
+    public int getX(int cell) {
+        return cell % width;
+    }
+
+    public int getY(int cell) {
+        return cell / width;
+    }
+
+    public Point toPoint(int cell) {
+        return new Point(getX(cell), getY(cell));
+    }
+
+    public boolean exists(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    public boolean exists(Point point) {
+        return exists(point.getX(), point.getY());
+    }
+
+    public int neighbour(int cell, int direction) {
+        return neighbours[cell * DIRECTIONS + direction];
+    }
+
+    public int neighbour(int cell, Move move) {
+        return neighbours[cell * DIRECTIONS + move.ordinal()];
+    }
+
+    public static Move move(int direction) {
+        return MOVES[direction];
+    }
+
+    // the move that takes from to the adjacent cell to, or null
+    public Move moveBetween(int from, int to) {
+        int base = from * DIRECTIONS;
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            if (neighbours[base + direction] == to) return MOVES[direction];
+        }
+        return null;
+    }
+
+    public int distance(int from, int to) {
+        return Math.abs(getX(from) - getX(to)) + Math.abs(getY(from) - getY(to));
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getCells() {
+        return cells;
+    }
+}
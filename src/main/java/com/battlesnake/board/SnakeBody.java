@@ -0,0 +1,152 @@
+package com.battlesnake.board;
+
+import com.battlesnake.data.MoveFrame;
+import com.battlesnake.math.Point;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class SnakeBody {
+
+    public static final int MAX_HEALTH = 100;
+
+    // circular buffer of cell indices, the head sits at cells[head]
+    private int[] cells;
+    private int mask;
+    private int head;
+    private int length;
+    private int health;
+
+    // undo log, one entry per move: the vacated tail (NONE when the snake grew) and the health before it
+    private int[] undoTail;
+    private int[] undoHealth;
+    private int undoSize;
+
+    public SnakeBody(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        cells = new int[size];
+        mask = size - 1;
+        undoTail = new int[64];
+        undoHealth = new int[64];
+    }
+
+    public void reset(Grid grid, List<Point> body, int health) {
+        if (body.size() > cells.length) resize(body.size());
+        head = 0;
+        length = body.size();
+        for (int i = 0; i < length; i++) {
+            cells[i] = grid.index(body.get(i));
+        }
+        this.health = health;
+        undoSize = 0;
+    }
+
+    public void reset(MoveFrame frame, int snake) {
+        if (frame.length(snake) > cells.length) resize(frame.length(snake));
+        head = 0;
+        length = frame.length(snake);
+        for (int i = 0; i < length; i++) {
+            cells[i] = frame.cell(snake, i);
+        }
+        this.health = frame.getHealth(snake);
+        undoSize = 0;
+    }
+
+    public void copyFrom(SnakeBody other) {
+        if (other.cells.length != cells.length) {
+            cells = new int[other.cells.length];
+            mask = other.mask;
+        }
+        for (int i = 0; i < other.length; i++) {
+            cells[i] = other.get(i);
+        }
+        head = 0;
+        length = other.length;
+        health = other.health;
+        undoSize = 0;
+    }
+
+    // moves the head onto cell, the tail stays put when the snake grows
+    public void move(int cell, boolean grow) {
+        if (undoSize == undoTail.length) {
+            undoTail = Arrays.copyOf(undoTail, undoSize * 2);
+            undoHealth = Arrays.copyOf(undoHealth, undoSize * 2);
+        }
+        undoHealth[undoSize] = health;
+        if (grow) {
+            if (length == cells.length) resize(length + 1);
+            undoTail[undoSize++] = Grid.NONE;
+            length++;
+            health = MAX_HEALTH;
+        } else {
+            undoTail[undoSize++] = tail();
+            health--;
+        }
+        head = (head - 1) & mask;
+        cells[head] = cell;
+    }
+
+    public void undo() {
+        int tail = undoTail[--undoSize];
+        health = undoHealth[undoSize];
+        head = (head + 1) & mask;
+        if (tail == Grid.NONE) {
+            length--;
+        } else {
+            cells[(head + length - 1) & mask] = tail;
+        }
+    }
+
+    // the server's way of growing: after moving, the tail is doubled up and stays put next turn
+    public void eat() {
+        if (length == cells.length) resize(length + 1);
+        cells[(head + length) & mask] = tail();
+        length++;
+        health = MAX_HEALTH;
+    }
+
+    // undoes eat, the health comes back with the undo of the move before it
+    public void uneat() {
+        length--;
+    }
+
+    private void resize(int capacity) {
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        int[] resized = new int[size];
+        for (int i = 0; i < length; i++) {
+            resized[i] = get(i);
+        }
+        cells = resized;
+        mask = size - 1;
+        head = 0;
+    }
+
+    // segment i counted from the head
+    public int get(int i) {
+        return cells[(head + i) & mask];
+    }
+
+    public int head() {
+        return cells[head];
+    }
+
+    public int tail() {
+        return cells[(head + length - 1) & mask];
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int health() {
+        return health;
+    }
+
+    public boolean justAte() {
+        return health == MAX_HEALTH;
+    }
+
+    public boolean longerThan(SnakeBody other) {
+        return length > other.length;
+    }
+}
@@ -0,0 +1,59 @@
+package com.battlesnake.board;
+
+import java.util.Arrays;
+
+/*
+ * Voronoi territory: a breadth first search from every living head at once, where each free
+ * cell goes to the snake that reaches it first and cells reached by two snakes at once go to
+ * nobody. The counts are never negative and never add up to more than the board.
+ */
+public class Territory {
+
+    private static final int CONTESTED = -2;
+
+    private final Grid grid;
+    private final int[] owner;
+    private final int[] distance;
+    private final int[] queue;
+
+    public Territory(Grid grid) {
+        this.grid = grid;
+        owner = new int[grid.getCells()];
+        distance = new int[grid.getCells()];
+        queue = new int[grid.getCells()];
+    }
+
+    // cells per snake into out, snakes that are dead or excluded get none
+    public void compute(GameState state, boolean[] excluded, int[] out) {
+        BitBoard board = state.getBoard();
+        Arrays.fill(out, 0);
+        Arrays.fill(owner, Grid.NONE);
+        int head = 0;
+        int tail = 0;
+        for (int snake = 0; snake < state.getSnakeCount(); snake++) {
+            if (!state.isAlive(snake) || (excluded != null && excluded[snake])) continue;
+            int cell = state.getSnake(snake).head();
+            owner[cell] = snake;
+            distance[cell] = 0;
+            queue[tail++] = cell;
+        }
+        while (head < tail) {
+            int cell = queue[head++];
+            int snake = owner[cell];
+            for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+                int next = grid.neighbour(cell, direction);
+                if (next == Grid.NONE || board.isFilled(next) || board.isHead(next)) continue;
+                if (owner[next] == Grid.NONE) {
+                    owner[next] = snake;
+                    distance[next] = distance[cell] + 1;
+                    queue[tail++] = next;
+                    if (snake >= 0) out[snake]++;
+                } else if (owner[next] != snake && owner[next] >= 0 && distance[next] == distance[cell] + 1) {
+                    // reached by two snakes at once, nobody owns it
+                    out[owner[next]]--;
+                    owner[next] = CONTESTED;
+                }
+            }
+        }
+    }
+}
@@ -1,13 +0,0 @@
-package com.battlesnake.board;
-
-public enum TileType {
-
-    EMPTY,
-    WALL,
-    HEADS,
-    FOOD,
-    ME,
-    FAKE_WALL,
-    TAIL;
-
-}
@@ -0,0 +1,98 @@
+package com.battlesnake.board;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public final class Zobrist {
+
+    public static final int MAX_SNAKES = 16;
+    public static final int HEALTH_BUCKETS = (SnakeBody.MAX_HEALTH >> 3) + 1;
+
+    // fixed seed, so the same position hashes the same on every request
+    private static final long SEED = 0x5EEDC0FFEE15BADL;
+
+    private static final ConcurrentMap<Grid, Zobrist> KEYS = new ConcurrentHashMap<>();
+
+    private final int cells;
+    private final long[] segments;
+    private final long[] heads;
+    private final long[] food;
+    private final long[] health;
+    private final long sideToMove;
+    private final long[] me;
+
+    private Zobrist(Grid grid) {
+        cells = grid.getCells();
+        Random random = new Random(SEED ^ ((long) grid.getWidth() << 32) ^ grid.getHeight());
+        segments = keys(random, MAX_SNAKES * cells);
+        heads = keys(random, MAX_SNAKES * cells);
+        food = keys(random, cells);
+        health = keys(random, MAX_SNAKES * HEALTH_BUCKETS);
+        sideToMove = random.nextLong();
+        me = keys(random, MAX_SNAKES);
+    }
+
+    public static Zobrist of(Grid grid) {
+        Zobrist keys = KEYS.get(grid);
+        if (keys == null) {
+            keys = new Zobrist(grid);
+            Zobrist existing = KEYS.putIfAbsent(grid, keys);
+            if (existing != null) keys = existing;
+        }
+        return keys;
+    }
+
+    private static long[] keys(Random random, int size) {
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) keys[i] = random.nextLong();
+        return keys;
+    }
+
+    // more snakes than slots share keys, which only costs a few extra collisions
+    public long segment(int snake, int cell) {
+        return segments[(snake & (MAX_SNAKES - 1)) * cells + cell];
+    }
+
+    public long head(int snake, int cell) {
+        return heads[(snake & (MAX_SNAKES - 1)) * cells + cell];
+    }
+
+    public long food(int cell) {
+        return food[cell];
+    }
+
+    public long health(int snake, int health) {
+        return this.health[(snake & (MAX_SNAKES - 1)) * HEALTH_BUCKETS + (Math.min(Math.max(health, 0), SnakeBody.MAX_HEALTH) >> 3)];
+    }
+
+    public long sideToMove() {
+        return sideToMove;
+    }
+
+    // which snake the scores are for, the same bodies seen by another snake are another position
+    public long me(int snake) {
+        return me[snake & (MAX_SNAKES - 1)];
+    }
+
+    // full hash of a position, the searches keep it up to date incrementally after this
+    public long hash(GameState state) {
+        long hash = 0;
+        BitBoard board = state.getBoard();
+        for (int cell = 0; cell < cells; cell++) {
+            if (board.isFood(cell)) hash ^= food[cell];
+        }
+        for (int snake = 0; snake < state.getSnakeCount(); snake++) {
+            if (!state.isAlive(snake)) continue;
+            SnakeBody body = state.getSnake(snake);
+            for (int i = 0; i < body.length(); i++) {
+                // stacked segments share a cell and are only hashed once
+                if (i == 0 || body.get(i) != body.get(i - 1)) hash ^= segment(snake, body.get(i));
+            }
+            hash ^= head(snake, body.head());
+            hash ^= health(snake, body.health());
+        }
+        if (state.getMe() >= 0) hash ^= me(state.getMe());
+        return hash;
+    }
+}
@@ -0,0 +1,40 @@
+package com.battlesnake.data;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+ * Response bodies encoded once, with the same mapper Spring would use, and written as they are.
+ *
+ * A /move answer is one of four documents, so each is kept as bytes along with the configured
+ * taunt.
+ */
+@Component
+public class EncodedResponses {
+
+    private final ObjectMapper mapper;
+    private final String taunt;
+    private final byte[][] moves = new byte[Move.values().length][];
+
+    public EncodedResponses(ObjectMapper mapper, @Value("${snake.taunt:}") String taunt) {
+        this.mapper = mapper;
+        this.taunt = taunt.isEmpty() ? null : taunt;
+        for (Move move : Move.values()) {
+            moves[move.ordinal()] = encode(new MoveResponse(move, this.taunt));
+        }
+    }
+
+    public byte[] move(Move move) {
+        return moves[move.ordinal()];
+    }
+
+    public byte[] encode(Object response) {
+        try {
+            return mapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode " + response.getClass().getSimpleName(), e);
+        }
+    }
+}
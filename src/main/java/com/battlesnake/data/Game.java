@@ -0,0 +1,30 @@
+package com.battlesnake.data;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class Game {
+
+    private String id;
+    private int timeout; // milliseconds allowed for a /move round trip
+
+    public Game() {
+    }
+
+    @JsonProperty("id")
+    public String getId() {
+        return id;
+    }
+
+    @JsonProperty("timeout")
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+}
@@ -20,9 +20,7 @@ import com.battlesnake.math.Point;
 import com.fasterxml.jackson.annotation.JsonValue;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public enum Move {
   UP,
@@ -43,15 +41,6 @@ public enum Move {
     }
   }
 
-  public static Map<Move, Point> adjacent(Point point) {
-    Map<Move, Point> moves = new HashMap<>();
-    moves.put(Move.UP, Move.UP.translate(point));
-    moves.put(Move.DOWN, Move.DOWN.translate(point));
-    moves.put(Move.LEFT, Move.LEFT.translate(point));
-    moves.put(Move.RIGHT, Move.RIGHT.translate(point));
-    return moves;
-  }
-
   public static List<Move> allMoves(){
     List<Move> moves = new ArrayList<Move>();
     moves.add(Move.UP);
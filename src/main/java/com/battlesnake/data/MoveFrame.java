@@ -0,0 +1,261 @@
+package com.battlesnake.data;
+
+import com.battlesnake.board.SnakeBody;
+import com.battlesnake.math.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * A /move body as flat arrays: every snake's body as cells, head first and one snake after
+ * the other, and the food as cells. MoveRequestDecoder fills one in place, and the session's
+ * board and the game state of every search are loaded straight from it.
+ *
+ * The Snake and Point objects the pathfinding and minimax strategies still work on are only
+ * built when one of them asks for them. A frame is reused for the next request on the same
+ * thread, so nothing may hold on to it after the request is answered.
+ */
+public class MoveFrame {
+
+    private String gameId;
+    private int turn;
+    private int timeout;
+    private int width;
+    private int height;
+    private String youId;
+    private int you;
+
+    private int snakeCount;
+    private String[] ids = new String[8];
+    private int[] health = new int[8];
+    // snake i's segments run from start[i] up to start[i + 1]
+    private int[] start = new int[9];
+    private int segmentCount;
+    private int[] xs = new int[256];
+    private int[] ys = new int[256];
+    private int[] cells = new int[256];
+
+    private int foodCount;
+    private int[] foodXs = new int[32];
+    private int[] foodYs = new int[32];
+    private int[] food = new int[32];
+
+    // the objects, built on demand
+    private List<Snake> snakes;
+    private List<Point> foodPoints;
+
+    // the board a /move body would have been bound to, with our snake picked out of it
+    public static MoveFrame of(int width, int height, List<Snake> snakes, List<Point> food, Snake you) {
+        MoveFrame frame = new MoveFrame();
+        frame.width = width;
+        frame.height = height;
+        frame.youId = you == null ? null : you.getId();
+        for (Snake snake : snakes) {
+            int i = frame.beginSnake();
+            frame.ids[i] = snake.getId();
+            frame.health[i] = snake.getHealth();
+            for (Point point : snake.getBody()) frame.addSegment(point.getX(), point.getY());
+        }
+        if (food != null) {
+            for (Point snack : food) frame.addFood(snack.getX(), snack.getY());
+        }
+        frame.finish();
+        frame.snakes = snakes;
+        frame.foodPoints = food;
+        return frame;
+    }
+
+    void reset() {
+        gameId = null;
+        turn = 0;
+        timeout = 0;
+        width = 0;
+        height = 0;
+        youId = null;
+        snakeCount = 0;
+        segmentCount = 0;
+        foodCount = 0;
+        snakes = null;
+        foodPoints = null;
+    }
+
+    int beginSnake() {
+        if (snakeCount == ids.length) {
+            ids = Arrays.copyOf(ids, snakeCount * 2);
+            health = Arrays.copyOf(health, snakeCount * 2);
+            start = Arrays.copyOf(start, snakeCount * 2 + 1);
+        }
+        ids[snakeCount] = null;
+        health[snakeCount] = 0;
+        start[snakeCount + 1] = segmentCount;
+        return snakeCount++;
+    }
+
+    void setId(int snake, String id) {
+        ids[snake] = id;
+    }
+
+    void setHealth(int snake, int health) {
+        this.health[snake] = health;
+    }
+
+    // adds a segment to the snake begun last
+    void addSegment(int x, int y) {
+        if (segmentCount == xs.length) {
+            xs = Arrays.copyOf(xs, segmentCount * 2);
+            ys = Arrays.copyOf(ys, segmentCount * 2);
+            cells = Arrays.copyOf(cells, segmentCount * 2);
+        }
+        xs[segmentCount] = x;
+        ys[segmentCount++] = y;
+        start[snakeCount] = segmentCount;
+    }
+
+    void addFood(int x, int y) {
+        if (foodCount == foodXs.length) {
+            foodXs = Arrays.copyOf(foodXs, foodCount * 2);
+            foodYs = Arrays.copyOf(foodYs, foodCount * 2);
+            food = Arrays.copyOf(food, foodCount * 2);
+        }
+        foodXs[foodCount] = x;
+        foodYs[foodCount++] = y;
+    }
+
+    // the width can come after the bodies, so cells are only worked out once it is all read
+    void finish() {
+        for (int i = 0; i < segmentCount; i++) {
+            cells[i] = ys[i] * width + xs[i];
+        }
+        for (int i = 0; i < foodCount; i++) {
+            food[i] = foodYs[i] * width + foodXs[i];
+        }
+        you = -1;
+        for (int i = 0; i < snakeCount; i++) {
+            if (ids[i] != null && ids[i].equals(youId)) you = i;
+        }
+    }
+
+    void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    void setTurn(int turn) {
+        this.turn = turn;
+    }
+
+    void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    void setWidth(int width) {
+        this.width = width;
+    }
+
+    void setHeight(int height) {
+        this.height = height;
+    }
+
+    void setYouId(String youId) {
+        this.youId = youId;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public int getTurn() {
+        return turn;
+    }
+
+    // the round trip allowed for this move, 0 when the server did not say
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // our snake's index, -1 when we are not on the board
+    public int getYou() {
+        return you;
+    }
+
+    public int getSnakeCount() {
+        return snakeCount;
+    }
+
+    public String getId(int snake) {
+        return ids[snake];
+    }
+
+    public int getHealth(int snake) {
+        return health[snake];
+    }
+
+    public boolean justAte(int snake) {
+        return health[snake] == SnakeBody.MAX_HEALTH;
+    }
+
+    public int length(int snake) {
+        return start[snake + 1] - start[snake];
+    }
+
+    // segment i of a snake counted from the head
+    public int cell(int snake, int i) {
+        return cells[start[snake] + i];
+    }
+
+    public int head(int snake) {
+        return cells[start[snake]];
+    }
+
+    public int tail(int snake) {
+        return cells[start[snake + 1] - 1];
+    }
+
+    public int getFoodCount() {
+        return foodCount;
+    }
+
+    public int food(int i) {
+        return food[i];
+    }
+
+    public List<Snake> snakes() {
+        if (snakes == null) {
+            snakes = new ArrayList<>(snakeCount);
+            for (int i = 0; i < snakeCount; i++) {
+                List<Point> body = new ArrayList<>(length(i));
+                for (int j = start[i]; j < start[i + 1]; j++) {
+                    body.add(new Point(xs[j], ys[j]));
+                }
+                Snake snake = new Snake();
+                snake.setId(ids[i]);
+                snake.setHealth(health[i]);
+                snake.setBody(body);
+                snakes.add(snake);
+            }
+        }
+        return snakes;
+    }
+
+    public Snake you() {
+        return you < 0 ? null : snakes().get(you);
+    }
+
+    public List<Point> foodPoints() {
+        if (foodPoints == null) {
+            foodPoints = new ArrayList<>(foodCount);
+            for (int i = 0; i < foodCount; i++) {
+                foodPoints.add(new Point(foodXs[i], foodYs[i]));
+            }
+        }
+        return foodPoints;
+    }
+}
@@ -21,6 +21,7 @@ import com.battlesnake.board.BoardGame;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class MoveRequest {
+  private Game game;
   private String gameId; // UUID
   private Snake you; // UUID
 
@@ -34,11 +35,22 @@ public class MoveRequest {
   @JsonProperty("board")
   public BoardGame getBoard(){return this.board;}
 
+  @JsonProperty("game")
+  public Game getGame() {
+    return this.game;
+  }
+
   @JsonProperty("game_id")
   public String getGameId() {
+    if (this.gameId == null && this.game != null) return this.game.getId();
     return this.gameId;
   }
 
+  // the round trip allowed for this move, 0 when the server did not say
+  public int getTimeout() {
+    return this.game == null ? 0 : this.game.getTimeout();
+  }
+
   @JsonProperty("you")
   public Snake getYou() {
     return this.you;
@@ -48,6 +60,14 @@ public class MoveRequest {
     return this.turn;
   }
 
+  public void setBoard(BoardGame board) {
+    this.board = board;
+  }
+
+  public void setGame(Game game) {
+    this.game = game;
+  }
+
   public void setGameId(String gameId) {
     this.gameId = gameId;
   }
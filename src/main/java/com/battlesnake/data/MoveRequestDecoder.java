@@ -0,0 +1,173 @@
+package com.battlesnake.data;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/*
+ * Reads a /move body token by token straight into a MoveFrame, the flat arrays the session's
+ * board and the searches are loaded from.
+ *
+ * Data binding goes through a bean deserializer per class and a reflective setter per field,
+ * and leaves a Snake per snake and a Point per segment behind; this walks the few fields we
+ * read in one pass into arrays that are reused from one request to the next, and skips
+ * anything else without building it. Fields it doesn't know are ignored, like Spring's mapper does.
+ */
+@Component
+public class MoveRequestDecoder {
+
+    private final JsonFactory factory = new JsonFactory();
+
+    public void decode(InputStream in, MoveFrame frame) throws IOException {
+        try (JsonParser parser = factory.createParser(in)) {
+            decode(parser, frame);
+        }
+    }
+
+    public void decode(byte[] body, MoveFrame frame) throws IOException {
+        try (JsonParser parser = factory.createParser(body)) {
+            decode(parser, frame);
+        }
+    }
+
+    private void decode(JsonParser parser, MoveFrame frame) throws IOException {
+        expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+        frame.reset();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "game":
+                    if (token == JsonToken.START_OBJECT) game(parser, frame);
+                    else parser.skipChildren();
+                    break;
+                case "game_id":
+                    frame.setGameId(parser.getValueAsString());
+                    break;
+                case "turn":
+                    frame.setTurn(parser.getValueAsInt());
+                    break;
+                case "you":
+                    if (token == JsonToken.START_OBJECT) you(parser, frame);
+                    break;
+                case "board":
+                    if (token == JsonToken.START_OBJECT) board(parser, frame);
+                    else parser.skipChildren();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        frame.finish();
+    }
+
+    // the top level game_id wins over the game's id, whichever comes first
+    private void game(JsonParser parser, MoveFrame frame) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    if (frame.getGameId() == null) frame.setGameId(parser.getValueAsString());
+                    break;
+                case "timeout":
+                    frame.setTimeout(parser.getValueAsInt());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    // we are one of the board's snakes, only the id is needed to find which
+    private void you(JsonParser parser, MoveFrame frame) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("id".equals(field)) frame.setYouId(parser.getValueAsString());
+            else parser.skipChildren();
+        }
+    }
+
+    private void board(JsonParser parser, MoveFrame frame) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "width":
+                    frame.setWidth(parser.getValueAsInt());
+                    break;
+                case "height":
+                    frame.setHeight(parser.getValueAsInt());
+                    break;
+                case "food":
+                    if (token == JsonToken.START_ARRAY) points(parser, frame, true);
+                    break;
+                case "snakes":
+                    if (token == JsonToken.START_ARRAY) snakes(parser, frame);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    private void snakes(JsonParser parser, MoveFrame frame) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            expect(parser, token, JsonToken.START_OBJECT);
+            snake(parser, frame);
+        }
+    }
+
+    private void snake(JsonParser parser, MoveFrame frame) throws IOException {
+        int snake = frame.beginSnake();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "id":
+                    frame.setId(snake, parser.getValueAsString());
+                    break;
+                case "health":
+                    frame.setHealth(snake, parser.getValueAsInt());
+                    break;
+                case "body":
+                    if (token == JsonToken.START_ARRAY) points(parser, frame, false);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    // a body's segments or the food, each one an {"x":..,"y":..} object
+    private void points(JsonParser parser, MoveFrame frame, boolean food) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            expect(parser, token, JsonToken.START_OBJECT);
+            int x = 0;
+            int y = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("x".equals(field)) x = parser.getValueAsInt();
+                else if ("y".equals(field)) y = parser.getValueAsInt();
+                else parser.skipChildren();
+            }
+            if (food) frame.addFood(x, y);
+            else frame.addSegment(x, y);
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonToken token, JsonToken expected) throws JsonParseException {
+        if (token != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + token);
+        }
+    }
+}
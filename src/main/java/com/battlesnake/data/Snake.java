@@ -23,7 +23,6 @@ import com.battlesnake.minimax.Minimax;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.List;
-import java.util.Stack;
 
 public class Snake {
 
@@ -44,14 +43,12 @@ public class Snake {
     private int health; //0..100
     private Point position;
     private List<Point> body;
-    private Stack<List<Point>> previousBody;
 
     //snake state
     private SnakeState state;
 
     public Snake() {
         state = SnakeState.HUNGRY;
-        previousBody = new Stack<>();
     }
 
     public int checkCollision(Snake other) {
@@ -74,33 +71,13 @@ public class Snake {
         return false;
     }
 
-    public void applyMove(Move move){
-        if(move == null){
-            System.out.println("MOVE IS NULL");
-            move = Move.UP;
-        }
-        previousBody.push(body);
-        for(int i = body.size() - 1; i > 0; i--){
-            body.get(i).setX(body.get(i-1).getX());
-            body.get(i).setY(body.get(i-1).getY());
-            if(body.get(i).getX() == -1 || body.get(i).getX() == 11 ) System.out.print("why are you out of bounds?");
-            if(body.get(i).getY() == -1 || body.get(i).getY() == 11 ) System.out.print("why are you out of bounds?");
-        }
-        body.set(0, move.translate(body.get(0)));
-    }
-
-    public void undoMove(){
-        body = previousBody.pop();
-    }
-
-
     public SnakeState getState(Minimax board, Snake enemy){
         if(health < 50 && body.size() > 7){
-            System.out.println("HUNGRY");
+            //System.out.println("HUNGRY");
             return SnakeState.HUNGRY;
         }
         else if(health < 85 && body.size() < 7){
-            System.out.println("HUNGRY");
+            //System.out.println("HUNGRY");
             return SnakeState.HUNGRY;
         }
         else if(enemy == null ){
@@ -109,7 +86,7 @@ public class Snake {
             return SnakeState.HUNGRY;
         }
         else if(length() > board.longestSnake()){
-            System.out.println("AGRESSIVE");
+            //System.out.println("AGRESSIVE");
             return SnakeState.AGRESSIVE;
         }else if(length() > board.longestSnake() + 4){
             return SnakeState.FINDTAIL;
@@ -142,59 +119,60 @@ public class Snake {
        // return new Minimax(board.getBoard(), this, board.getSnakes(), board.getFood()).maximize().returnMove;
 
         SnakeState state = getState(board, enemy);
+        int head = board.getBoard().index(getHead());
         Move move = null;
         switch (state) {
             case HUNGRY:
                 System.out.println("HUNGRY");
-                move = board.findFood(getHead());
+                move = board.findFood(head);
                 if (move == null) {
-                    move = board.findCenter(getHead());
+                    move = board.findCenter(head);
                 }
                 if (move == null) {
-                    move = board.findTail(getHead());
+                    move = board.findTail(head);
                 }
                 break;
             case AGRESSIVE:
                 System.out.println("AGGRESSIVE");
-                move = board.findHead(getHead(), enemy);
+                move = board.findHead(head, enemy);
                 if (move == null) {
-                    move = board.findCenter(getHead());
+                    move = board.findCenter(head);
                 }
                 if (move == null) {
-                    move = board.findTail(getHead());
+                    move = board.findTail(head);
                 }
                 break;
             case FINDTAIL:
                 System.out.println("FINDTAIL");
-                move = board.findTail(getHead());
+                move = board.findTail(head);
                 if (move == null) {
-                    move = board.findCenter(getHead());
+                    move = board.findCenter(head);
                 }
                 if (move == null) {
-                    move = board.findHead(getHead(), enemy);
+                    move = board.findHead(head, enemy);
                 }
                 break;
             case CENTER:
                 System.out.println("CENTER");
-                move = board.findCenter(getHead());
+                move = board.findCenter(head);
                 if (move == null) {
-                    move = board.findFood(getHead()) ;
+                    move = board.findFood(head) ;
                 }
                 if (move == null) {
-                    move = board.findTail(getHead());
+                    move = board.findTail(head);
                 }
         }
-        if(move == null) return board.findExit(getHead());
+        if(move == null) return board.findExit(head);
 
         return move;
     }
 
-    public Move moveMinMax(Minimax board, Snake enemy, Point current){
+    public Move moveMinMax(Minimax board, Snake enemy, int current){
         SnakeState state = getState(board, enemy);
         Move move = null;
         switch (state) {
             case HUNGRY:
-                System.out.println("HUNGRY");
+                //System.out.println("HUNGRY");
                 move = board.findFood(current);
                 if (move == null) {
                     move = board.findCenter(current);
@@ -204,7 +182,7 @@ public class Snake {
                 }
                 break;
             case AGRESSIVE:
-                System.out.println("AGGRESSIVE");
+                //System.out.println("AGGRESSIVE");
                 move = board.findHead(current, enemy);
                 if (move == null) {
                     move = board.findCenter(current);
@@ -214,7 +192,7 @@ public class Snake {
                 }
                 break;
             case FINDTAIL:
-                System.out.println("FINDTAIL");
+                //System.out.println("FINDTAIL");
                 move = board.findTail(current);
                 if (move == null) {
                     move = board.findCenter(current);
@@ -224,7 +202,7 @@ public class Snake {
                 }
                 break;
             case CENTER:
-                System.out.println("CENTER");
+                //System.out.println("CENTER");
                 move = board.findCenter(current);
                 if (move == null) {
                     move = board.findFood(current) ;
@@ -297,6 +275,26 @@ public class Snake {
         return this.health;
     }
 
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public void setTaunt(String taunt) {
+        this.taunt = taunt;
+    }
+
+    public void setHealth(int health) {
+        this.health = health;
+    }
+
+    public void setBody(List<Point> body) {
+        this.body = body;
+    }
+
     public void setHead(Point point){
         this.body.set(0, point);
     }
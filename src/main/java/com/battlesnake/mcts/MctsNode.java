@@ -0,0 +1,63 @@
+package com.battlesnake.mcts;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * One position in the tree. Statistics are decoupled: every snake keeps its own visit count
+ * and reward per move, and picks its move from those alone, as if the others weren't there.
+ * Children are keyed by the joint move that leads to them.
+ */
+public class MctsNode {
+
+    // rewards are kept as fixed point so they can be added atomically
+    private static final double SCALE = 1 << 16;
+
+    private final AtomicInteger visits = new AtomicInteger();
+    private final AtomicIntegerArray moveVisits;
+    private final AtomicLongArray moveRewards;
+    private final ConcurrentMap<Integer, MctsNode> children = new ConcurrentHashMap<>();
+
+    public MctsNode(int snakes) {
+        moveVisits = new AtomicIntegerArray(snakes * 4);
+        moveRewards = new AtomicLongArray(snakes * 4);
+    }
+
+    // counts the visit before its result is known, a virtual loss that steers other threads away
+    public void visit(int snake, int direction) {
+        moveVisits.incrementAndGet(snake * 4 + direction);
+    }
+
+    public void visit() {
+        visits.incrementAndGet();
+    }
+
+    public void reward(int snake, int direction, double reward) {
+        moveRewards.addAndGet(snake * 4 + direction, (long) (reward * SCALE));
+    }
+
+    public int getVisits() {
+        return visits.get();
+    }
+
+    public int getVisits(int snake, int direction) {
+        return moveVisits.get(snake * 4 + direction);
+    }
+
+    public double getReward(int snake, int direction) {
+        return moveRewards.get(snake * 4 + direction) / SCALE;
+    }
+
+    public MctsNode child(int jointMove) {
+        return children.get(jointMove);
+    }
+
+    // the existing child when another thread got there first
+    public MctsNode addChild(int jointMove, MctsNode child) {
+        MctsNode existing = children.putIfAbsent(jointMove, child);
+        return existing == null ? child : existing;
+    }
+}
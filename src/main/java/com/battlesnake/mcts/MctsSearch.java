@@ -0,0 +1,248 @@
+package com.battlesnake.mcts;
+
+import com.battlesnake.board.BitBoard;
+import com.battlesnake.board.GameSimulator;
+import com.battlesnake.board.GameState;
+import com.battlesnake.board.Grid;
+import com.battlesnake.board.Territory;
+import com.battlesnake.data.Move;
+import com.battlesnake.timing.Deadline;
+import com.battlesnake.timing.HelperTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Monte Carlo tree search with decoupled UCT for simultaneous moves.
+ *
+ * Every worker thread plays out from the same tree on its own copy of the board. Visits are
+ * counted on the way down, before the result is known, so threads spread over different
+ * moves instead of piling onto the same line. Rollouts play random safe moves through the
+ * GameSimulator and undo them afterwards, without allocating. The search runs until the
+ * deadline and answers with our most visited move at the root.
+ */
+public class MctsSearch {
+
+    private static final double EXPLORATION = Math.sqrt(2);
+    private static final int MAX_TREE_DEPTH = 64;
+    private static final int ROLLOUT_TURNS = 30;
+    private static final int DEAD = -1;
+
+    private final ForkJoinPool pool;
+    private final int workers;
+    private final GameState state;
+
+    private MctsNode root;
+    private final LongAdder playouts = new LongAdder();
+    private long elapsed;
+
+    // plays out on the state's board, from the position it is loaded with
+    public MctsSearch(ForkJoinPool pool, int workers, GameState state) {
+        this.pool = pool;
+        this.workers = Math.max(1, workers);
+        this.state = state;
+    }
+
+    public Move search(Deadline deadline) {
+        long start = System.nanoTime();
+        Worker main = new Worker(state, 0);
+        if (main.me < 0) return null;
+        root = new MctsNode(main.snakeCount);
+
+        // copies are taken before the main worker starts moving pieces on its board
+        List<HelperTask<Void>> helpers = new ArrayList<>();
+        for (int i = 1; i < workers; i++) {
+            Worker helper = new Worker(new GameState(new BitBoard(state.getBoard()), state), i);
+            helpers.add(new HelperTask<>(pool, () -> {
+                helper.run(deadline);
+                return null;
+            }));
+        }
+        main.run(deadline);
+        // workers still queued behind other games never start, the running ones are out of time too
+        for (HelperTask<Void> helper : helpers) {
+            try {
+                helper.finish();
+            } catch (RuntimeException e) {
+                System.out.println("Playout worker failed: " + e);
+            }
+        }
+        elapsed = System.nanoTime() - start;
+
+        Move best = null;
+        int mostVisits = 0;
+        for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+            int visits = root.getVisits(main.me, direction);
+            if (visits > mostVisits) {
+                mostVisits = visits;
+                best = Grid.move(direction);
+            }
+        }
+        return best;
+    }
+
+    public long getPlayouts() {
+        return playouts.sum();
+    }
+
+    public double getPlayoutsPerSecond() {
+        return elapsed == 0 ? 0 : playouts.sum() / (elapsed / 1e9);
+    }
+
+    private class Worker {
+
+        private final BitBoard board;
+        private final Grid grid;
+        private final GameState state;
+        private final GameSimulator simulator;
+        private final Territory territory;
+        private final SplittableRandom random;
+        private final int me;
+        private final int snakeCount;
+
+        // everything a playout touches, allocated once per worker
+        private final MctsNode[] path = new MctsNode[MAX_TREE_DEPTH];
+        private final int[][] turns;
+        private final int[] rolloutTurn;
+        private final int[] safe = new int[Grid.DIRECTIONS];
+        private final int[] scores;
+        private final double[] rewards;
+
+        private Worker(GameState state, int seed) {
+            this.board = state.getBoard();
+            this.grid = board.getGrid();
+            this.state = state;
+            simulator = new GameSimulator(state);
+            territory = new Territory(grid);
+            random = new SplittableRandom(System.nanoTime() ^ seed);
+            me = state.getMe();
+            snakeCount = state.getSnakeCount();
+
+            turns = new int[MAX_TREE_DEPTH][snakeCount];
+            rolloutTurn = new int[snakeCount];
+            scores = new int[snakeCount];
+            rewards = new double[snakeCount];
+        }
+
+        private void run(Deadline deadline) {
+            while (!deadline.expired()) {
+                playout();
+                playouts.increment();
+            }
+        }
+
+        private void playout() {
+            MctsNode node = root;
+            int depth = 0;
+            node.visit();
+            while (depth < MAX_TREE_DEPTH && !finished()) {
+                int[] turn = turns[depth];
+                int jointMove = 0;
+                for (int snake = 0; snake < snakeCount; snake++) {
+                    if (!state.isAlive(snake)) {
+                        turn[snake] = DEAD;
+                        continue;
+                    }
+                    int direction = select(node, snake);
+                    node.visit(snake, direction);
+                    turn[snake] = direction;
+                    jointMove |= direction << (snake * 2);
+                }
+                path[depth++] = node;
+                simulator.step(turn);
+
+                MctsNode child = node.child(jointMove);
+                boolean expanded = child == null;
+                if (expanded) child = node.addChild(jointMove, new MctsNode(snakeCount));
+                node = child;
+                node.visit();
+                if (expanded) break;
+            }
+
+            rollout();
+
+            for (int i = 0; i < depth; i++) {
+                int[] turn = turns[i];
+                for (int snake = 0; snake < snakeCount; snake++) {
+                    if (turn[snake] != DEAD) path[i].reward(snake, turn[snake], rewards[snake]);
+                }
+            }
+            for (int i = 0; i < depth; i++) {
+                simulator.undo();
+            }
+        }
+
+        // UCB1 over the snake's own statistics, untried moves first
+        private int select(MctsNode node, int snake) {
+            int count = safeMoves(snake);
+            if (count == 0) return 0;
+            double logVisits = Math.log(Math.max(1, node.getVisits()));
+            int best = safe[0];
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                int direction = safe[i];
+                int visits = node.getVisits(snake, direction);
+                if (visits == 0) return direction;
+                double value = node.getReward(snake, direction) / visits + EXPLORATION * Math.sqrt(logVisits / visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = direction;
+                }
+            }
+            return best;
+        }
+
+        // random safe moves for everyone, scored and then undone
+        private void rollout() {
+            int played = 0;
+            while (played < ROLLOUT_TURNS && !finished()) {
+                for (int snake = 0; snake < snakeCount; snake++) {
+                    if (!state.isAlive(snake)) continue;
+                    int count = safeMoves(snake);
+                    rolloutTurn[snake] = count == 0 ? 0 : safe[random.nextInt(count)];
+                }
+                simulator.step(rolloutTurn);
+                played++;
+            }
+            evaluate();
+            for (int i = 0; i < played; i++) {
+                simulator.undo();
+            }
+        }
+
+        // 0 for the dead, 1 for the last snake standing, otherwise a half plus a share of the territory
+        private void evaluate() {
+            int alive = alive();
+            territory.compute(state, null, scores);
+            for (int snake = 0; snake < snakeCount; snake++) {
+                if (!state.isAlive(snake)) rewards[snake] = 0;
+                else if (alive == 1) rewards[snake] = 1;
+                else rewards[snake] = 0.5 + 0.5 * scores[snake] / grid.getCells();
+            }
+        }
+
+        private int safeMoves(int snake) {
+            int count = 0;
+            for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+                int cell = state.target(snake, direction);
+                if (cell != Grid.NONE && !board.isFilled(cell) && !board.isHead(cell)) safe[count++] = direction;
+            }
+            return count;
+        }
+
+        private boolean finished() {
+            return !state.isAlive(me) || alive() <= 1;
+        }
+
+        private int alive() {
+            int alive = 0;
+            for (int snake = 0; snake < snakeCount; snake++) {
+                if (state.isAlive(snake)) alive++;
+            }
+            return alive;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.battlesnake.minimax;
+
+import com.battlesnake.data.MoveValue;
+
+// A search that can be run to a fixed depth, returning null when it was cut short
+public interface DepthSearch {
+
+    MoveValue search(int depth);
+}
@@ -0,0 +1,49 @@
+package com.battlesnake.minimax;
+
+import com.battlesnake.data.MoveValue;
+import com.battlesnake.timing.Deadline;
+
+/*
+ * Searches depth 1, 2, 3 and deeper until the deadline is hit, and answers with the best move
+ * of the last depth that finished. Each iteration fills the transposition table for the next,
+ * so the shallow passes cost little on top of the deepest one.
+ */
+public class IterativeDeepening {
+
+    // a depth costs roughly this many times the one before it
+    private static final int GROWTH = 3;
+
+    private final int firstDepth;
+    private final int maxDepth;
+    private int completedDepth;
+
+    public IterativeDeepening(int maxDepth) {
+        this(1, maxDepth);
+    }
+
+    public IterativeDeepening(int firstDepth, int maxDepth) {
+        this.firstDepth = firstDepth;
+        this.maxDepth = maxDepth;
+    }
+
+    public MoveValue search(DepthSearch search, Deadline deadline) {
+        MoveValue best = null;
+        completedDepth = 0;
+        for (int depth = firstDepth; depth <= maxDepth && !deadline.expired(); depth++) {
+            long start = System.nanoTime();
+            MoveValue result = search.search(depth);
+            if (result == null) break;
+            if (result.returnMove != null) best = result;
+            completedDepth = depth;
+
+            // don't start a depth that can't finish in time
+            long elapsed = System.nanoTime() - start;
+            if (elapsed * GROWTH > deadline.remainingNanos()) break;
+        }
+        return best;
+    }
+
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+}
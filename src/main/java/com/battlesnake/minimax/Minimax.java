@@ -1,158 +1,270 @@
 package com.battlesnake.minimax;
 
-import com.battlesnake.board.Board;
-import com.battlesnake.board.Tile;
-import com.battlesnake.board.TileType;
+import com.battlesnake.board.BitBoard;
+import com.battlesnake.board.GameState;
+import com.battlesnake.board.Grid;
+import com.battlesnake.board.SnakeBody;
 import com.battlesnake.data.Move;
 import com.battlesnake.data.MoveValue;
 import com.battlesnake.data.Snake;
 import com.battlesnake.math.Point;
 import com.battlesnake.pathfinding.Pathfinding;
+import com.battlesnake.pathfinding.Routes;
+import com.battlesnake.timing.Deadline;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
-public class Minimax {
+public class Minimax implements SearchWorker {
 
     private static final int MIN = -999999;
     private static final int NONE = -50;
     private static final int MAX = 999999;
 
-    private Tile[][] tiles;
+    // goal kinds for the search that answers every find of a node at once
+    private static final int FOOD = 0;
+    private static final int CENTER = 1;
+    private static final int TAIL = 2;
+    private static final int HEAD = 3;
+
+    private BitBoard board;
+    private Grid grid;
+    private GameState state;
     private Snake mySnake;
     private List<Snake> snakes;
     private List<Point> food;
     private Pathfinding pathfinding;
+    private Routes routes;
+    // whether routes holds the current node's goals, and whose head is one of them
+    private boolean routesPlanned;
+    private Snake routesEnemy;
+    // the cost of the route the last find took, what a leaf is worth
+    private int routeScore;
+    private TranspositionTable table;
+
+    // iterative deepening state
+    private int maxDepth;
+    private Deadline deadline;
+    private boolean aborted;
+    private long nodes;
+    private MoveOrdering ordering;
 
     private int width;
     private int height;
 
-    public Minimax(Tile[][] tiles, Snake mySnake, List<Snake> snakes, List<Point> food){
-        this.tiles = tiles;
+    public Minimax(BitBoard board, Snake mySnake, List<Snake> snakes, List<Point> food){
+        this.board = board;
+        this.grid = board.getGrid();
         this.mySnake = mySnake;
         this.snakes = snakes;
         this.food = food;
         pathfinding = new Pathfinding();
+        routes = new Routes(grid.getCells());
+        state = new GameState(board);
+        state.load(snakes, mySnake);
+        ordering = new MoveOrdering(state.getSnakeCount(), grid.getCells());
+
+        this.width = board.getWidth();
+        this.height = board.getHeight();
+    }
 
-        this.width = tiles[0].length;
-        this.height = tiles.length;
+    public Minimax(BitBoard board, Snake mySnake, List<Snake> snakes, List<Point> food, TranspositionTable table){
+        this(board, mySnake, snakes, food);
+        this.table = table;
     }
 
-    public MoveValue maximize(){
-       return maximize(findEnemySnake(), 0, Minimax.MIN, Minimax.MAX);
+    // a helper for another thread, searching its own copy of the board
+    public Minimax(Minimax other){
+        this(new BitBoard(other.board), other.mySnake, other.snakes, other.food, other.table);
+        setDeadline(other.deadline);
     }
 
-    public MoveValue maximize(Snake enemy, int depth, double alpha, double beta){
+    @Override
+    public SearchWorker copy() {
+        return table == null ? null : new Minimax(this);
+    }
+
+    // searches to a fixed depth, returns null when the deadline cut the search short
+    @Override
+    public MoveValue search(int maxDepth){
+        Snake enemy = findEnemySnake();
+        int enemyIndex = state.indexOf(enemy);
+        if (enemyIndex < 0) return null;
+
+        this.maxDepth = maxDepth;
+        aborted = false;
+        if (ordering != null) ordering.age();
+        MoveValue result = maximize(enemy, enemyIndex, 0, Minimax.MIN, Minimax.MAX);
+        return aborted ? null : result;
+    }
+
+    public MoveValue maximize(Snake enemy, int enemyIndex, int depth, double alpha, double beta){
         boolean isMaximizing = (depth % 2 == 0);
 
+        if (deadline != null && deadline.expired()) aborted = true;
+        if (aborted) return new MoveValue();
+        nodes++;
+
         MoveValue returnMove;
-        MoveValue bestMove = new MoveValue();
+        MoveValue bestMove;
+
+        // positions reached through another move order were already searched
+        int remaining = maxDepth - depth;
+        long key = state.getHash();
+        Move tableMove = null;
+        if (table != null) {
+            long entry = table.probe(key);
+            if (depth > 0 && TranspositionTable.cutoff(entry, remaining, alpha, beta)) {
+                return new MoveValue(TranspositionTable.score(entry), TranspositionTable.move(entry));
+            }
+            tableMove = TranspositionTable.move(entry);
+        }
+        double alphaStart = alpha;
+        double betaStart = beta;
 
         if(!isMaximizing){
 
             // get value for pathfinding
-            enemy.moveMinMax(this, mySnake, enemy.getHead());
-            int value = pathfinding.getNewestScore();
-            if(depth == 3) return new MoveValue(value);
+            beginFinds(mySnake);
+            enemy.moveMinMax(this, mySnake, state.getSnake(enemyIndex).head());
+            int value = routeScore;
+            if(depth == maxDepth) return new MoveValue(value);
 
             // check snake state
-            List<Move> moves = getPossibleMoves(enemy.getHead());
-            Iterator<Move> movesIterator = moves.iterator();
-            while (movesIterator.hasNext()) {
-                Move currentMove = movesIterator.next();
-                enemy.applyMove(currentMove);
-                updateBoard(tiles, enemy);
-                returnMove = maximize(enemy, depth + 1, alpha, beta);
-                enemy.undoMove();
-                updateBoard(tiles, enemy);
-
-                if ((bestMove == null) || (bestMove.returnValue < returnMove.returnValue)) {
+            bestMove = new MoveValue(Minimax.MIN);
+            int head = state.getSnake(enemyIndex).head();
+            List<Move> moves = getPossibleMoves(head);
+            if (moves.isEmpty()) return new MoveValue(value);
+            if (ordering != null) ordering.order(moves, tableMove, depth, enemyIndex, head);
+            for (int i = 0; i < moves.size(); i++) {
+                Move currentMove = moves.get(i);
+                state.makeMove(enemyIndex, currentMove.ordinal());
+                returnMove = maximize(enemy, enemyIndex, depth + 1, alpha, beta);
+                state.unmakeMove();
+                if (aborted) return bestMove;
+
+                if ((bestMove.returnMove == null) || (bestMove.returnValue < returnMove.returnValue)) {
                     bestMove = returnMove;
                     bestMove.returnMove = currentMove;
                 }
                 if (returnMove.returnValue > alpha) {
                     alpha = returnMove.returnValue;
-                    bestMove = returnMove;
                 }
                 if (beta <= alpha) {
                     //System.out.println("Beta <= Alpha: " + beta + ", " + alpha);
                     bestMove.returnValue = beta;
                     bestMove.returnMove = null;
+                    store(key, remaining, TranspositionTable.LOWER, beta, currentMove);
+                    if (ordering != null) ordering.cutoff(depth, enemyIndex, head, currentMove, remaining, i);
                     return bestMove; // pruning
                 }
             }
+            store(key, remaining, bestMove.returnValue <= alphaStart ? TranspositionTable.UPPER : TranspositionTable.EXACT,
+                    bestMove.returnValue, bestMove.returnMove);
             return bestMove;
         }else {
 
             // get value for pathfinding
-            mySnake.moveMinMax(this, enemy, mySnake.getHead());
-            int value = pathfinding.getNewestScore();
-            if(depth == 3) return new MoveValue(value);
+            beginFinds(enemy);
+            mySnake.moveMinMax(this, enemy, state.getSnake(state.getMe()).head());
+            int value = routeScore;
+            if(depth == maxDepth) return new MoveValue(value);
 
             // check snake state
-            List<Move> moves = getPossibleMoves(enemy.getHead());
-            Iterator<Move> movesIterator = moves.iterator();
-            while (movesIterator.hasNext()) {
-                Move currentMove = movesIterator.next();
-                mySnake.applyMove(currentMove);
-                updateBoard(tiles, mySnake);
-                returnMove = maximize(enemy, depth + 1, alpha, beta);
-                mySnake.undoMove();
-                updateBoard(tiles, mySnake);
-
-                if ((bestMove == null) || (bestMove.returnValue > returnMove.returnValue)) {
+            bestMove = new MoveValue(Minimax.MAX);
+            int head = state.getSnake(state.getMe()).head();
+            List<Move> moves = getPossibleMoves(head);
+            if (moves.isEmpty()) return new MoveValue(Minimax.MAX);
+            if (ordering != null) ordering.order(moves, tableMove, depth, state.getMe(), head);
+            for (int i = 0; i < moves.size(); i++) {
+                Move currentMove = moves.get(i);
+                state.makeMove(state.getMe(), currentMove.ordinal());
+                returnMove = maximize(enemy, enemyIndex, depth + 1, alpha, beta);
+                state.unmakeMove();
+                if (aborted) return bestMove;
+
+                if ((bestMove.returnMove == null) || (bestMove.returnValue > returnMove.returnValue)) {
                     bestMove = returnMove;
                     bestMove.returnMove = currentMove;
                 }
                 if (returnMove.returnValue < beta) {
                     beta = returnMove.returnValue;
-                    bestMove = returnMove;
                 }
                 if (beta <= alpha) {
                     //System.out.println("Beta <= Alpha: " + beta + ", " + alpha);
                     bestMove.returnValue = alpha;
                     bestMove.returnMove = null;
+                    store(key, remaining, TranspositionTable.UPPER, alpha, currentMove);
+                    if (ordering != null) ordering.cutoff(depth, state.getMe(), head, currentMove, remaining, i);
                     return bestMove; // pruning
                 }
             }
+            store(key, remaining, bestMove.returnValue >= betaStart ? TranspositionTable.LOWER : TranspositionTable.EXACT,
+                    bestMove.returnValue, bestMove.returnMove);
             return bestMove;
         }
     }
 
-    // Checks if point exist within the bounds of the board
-    public boolean exists(Point point) {
-        if (point.getX() < 0) return false;
-        if (point.getY() < 0) return false;
-        if (point.getX() > tiles[0].length - 1) return false;
-        if (point.getY() > tiles.length - 1) return false;
-        return true;
+    // plays our move for good, so the search can look at the positions the server may send next
+    public List<Move> playMove(Move move) {
+        state.makeMove(state.getMe(), move.ordinal());
+        int enemyIndex = state.indexOf(findEnemySnake());
+        if (enemyIndex < 0) return new ArrayList<>();
+        return getPossibleMoves(state.getSnake(enemyIndex).head());
+    }
+
+    public void playEnemyMove(Move move) {
+        state.makeMove(state.indexOf(findEnemySnake()), move.ordinal());
+    }
+
+    public void undoMove() {
+        state.unmakeMove();
+    }
+
+    @Override
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+        pathfinding.setDeadline(deadline);
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    // null searches the moves in board order
+    public void setOrdering(MoveOrdering ordering) {
+        this.ordering = ordering;
+    }
+
+    public MoveOrdering getOrdering() {
+        return ordering;
     }
 
-    // Takes in a point and returns all adjacent points
-    private List<Point> findAdjacent(Point point) {
-        return new ArrayList<>(Move.adjacent(point).values());
+    private void store(long key, int depth, int bound, double value, Move move) {
+        if (table != null) table.store(key, depth, bound, value, move);
+    }
+
+    // Checks if point exist within the bounds of the board
+    public boolean exists(int x, int y) {
+        return grid.exists(x, y);
     }
 
-    private boolean isFilled(Point point, Tile[][] board) {
-        if (!exists(point)) return true;
-        return board[point.getX()][point.getY()].getTileType() != TileType.EMPTY
-                && board[point.getX()][point.getY()].getTileType() != TileType.FOOD
-                && board[point.getX()][point.getY()].getTileType() != TileType.TAIL
-                && board[point.getX()][point.getY()].getTileType() != TileType.HEADS;
+    private boolean isFilled(int cell, BitBoard board) {
+        if (cell == Grid.NONE) return true;
+        return board.isBlocked(cell);
     }
 
 
-    private boolean movable(Point point) {
-        return !isFilled(point, tiles);
+    private boolean movable(int cell) {
+        return !isFilled(cell, board);
     }
 
-    private List<Move> getPossibleMoves(Point point) {
+    private List<Move> getPossibleMoves(int cell) {
         List<Move> moves = new ArrayList<>();
-        for (Map.Entry<Move, Point> move : Move.adjacent(point).entrySet()) {
-            if (movable(move.getValue()))
-                moves.add(move.getKey());
+        for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+            if (movable(grid.neighbour(cell, direction)))
+                moves.add(Grid.move(direction));
         }
         return moves;
     }
@@ -173,68 +285,78 @@ public class Minimax {
         return enemy;
     }
 
-    private Move moveToTile(Tile tile, Point point) {
-        Point p = new Point(tile.getX(), tile.getY());
-        for (Map.Entry<Move, Point> move : Move.adjacent(point).entrySet()) {
-            if (p.equals(move.getValue())) return move.getKey();
-        }
-        return null;
-    }
-
-    private Point nearestFood(Point current) {
+    private int nearestFood(int current) {
         int min = 1000;
         int dist = 0;
-        Point found = food.get(0);
+        int found = grid.index(food.get(0));
         for (Point snack : food) {
-            dist = Math.abs((tiles[0].length / 2) - snack.getX()) + (Math.abs((tiles.length / 2) - snack.getY()));
+            dist = Math.abs((width / 2) - snack.getX()) + (Math.abs((height / 2) - snack.getY()));
             if (dist < min) {
                 min = dist;
-                found = snack;
+                found = grid.index(snack);
             }
         }
         return found;
     }
 
-    public Move findFood(Point current) {
-        List<Tile> path = pathfinding.getRoute(tiles, current, nearestFood(current));
-        if (path.size() <= 1) return null;
-        Move move = moveToTile(path.get(path.size() - 2), current);
-        System.out.println("Current Position: " + current + ", Tile Position: " + path.get(path.size() - 2).getX() + ", " + path.get(path.size() - 2).getY());
+    private void beginFinds(Snake enemy) {
+        routesPlanned = false;
+        routesEnemy = enemy;
+    }
 
-        return move;
+    // the first find of a node is a plain A*, which is all most nodes need. When its goal is out
+    // of reach that search has already been through everything current can reach, so one pass
+    // to every goal at once answers the finds the state machine falls back to
+    private Move find(int kind, int current, int goal) {
+        if (!routesPlanned) {
+            Move move = pathfinding.route(board, current, goal);
+            routeScore = pathfinding.getNewestScore();
+            if (move != null) return move;
+            planRoutes(current);
+        }
+        routeScore = routes.isFound(kind) ? routes.getCost(kind) : Pathfinding.NO_ROUTE;
+        return routes.getMove(kind);
     }
 
-    public Move findTail(Point current) {
-        List<Tile> path = pathfinding.getRoute(tiles, current, mySnake.getTail());
-        if (path.size() <= 1) return null;
-        Move move = moveToTile(path.get(path.size() - 2), current);
+    private void planRoutes(int current) {
+        routes.clear();
+        if (!food.isEmpty()) routes.addGoal(FOOD, nearestFood(current));
+        routes.addGoal(CENTER, center());
+        routes.addGoal(TAIL, state.getSnake(state.getMe()).tail());
+        int enemyIndex = state.indexOf(routesEnemy);
+        if (enemyIndex >= 0) routes.addGoal(HEAD, state.getSnake(enemyIndex).head());
+        pathfinding.routes(board, current, routes);
+        routesPlanned = true;
+    }
 
-        return move;
+    private int center() {
+        return grid.index(width / 2, height / 2);
     }
 
-    public Move findHead(Point current, Snake enemy) {
-        if (enemy == null || enemy.longerThan(mySnake)) return findTail(current);
-        List<Tile> path = pathfinding.getRoute(tiles, current, enemy.getHead());
-        if (path.size() <= 1) return null;
-        Move move = moveToTile(path.get(path.size() - 2), current);
+    public Move findFood(int current) {
+        if (food.isEmpty()) return null;
+        return find(FOOD, current, nearestFood(current));
+    }
 
-        return move;
+    public Move findTail(int current) {
+        return find(TAIL, current, state.getSnake(state.getMe()).tail());
     }
 
-    public Move findCenter(Point current) {
-        Point center = new Point(tiles[0].length / 2, tiles.length / 2);
-        List<Tile> path = pathfinding.getRoute(tiles, current, center);
-        if (path.size() <= 1) return null;
-        Move move = moveToTile(path.get(path.size() - 2), current);
+    public Move findHead(int current, Snake enemy) {
+        int enemyIndex = state.indexOf(enemy);
+        if (enemyIndex < 0 || state.getSnake(enemyIndex).longerThan(state.getSnake(state.getMe()))) return findTail(current);
+        return find(HEAD, current, state.getSnake(enemyIndex).head());
+    }
 
-        return move;
+    public Move findCenter(int current) {
+        return find(CENTER, current, center());
     }
 
-    public Move findExit(Point current) {
-        System.out.println("FINDING EXIT");
-        Move move = getPossibleMoves(current).get(0);
-        if (move == null) return Move.UP;
-        return move;
+    public Move findExit(int current) {
+        //System.out.println("FINDING EXIT");
+        List<Move> moves = getPossibleMoves(current);
+        if (moves.isEmpty()) return Move.UP;
+        return moves.get(0);
     }
 
     public int longestSnake() {
@@ -247,38 +369,4 @@ public class Minimax {
         return len;
     }
 
-    private void updateBoard(Tile[][] board, Snake snake) {
-        List<Point> body = snake.getBody();
-        Point head = body.get(0);
-        for (int i = 0; i < body.size(); i++) {
-            if ((i == body.size() - 1)
-                    && body.size() > 1
-                    && !snake.justAte()) {
-                board[body.get(i).getX()][body.get(i).getY()] = new Tile(TileType.TAIL, body.get(i).getX(), body.get(i).getY());
-            } else {
-                if (body.get(i).getX() < 0 || body.get(i).getY() < 0)
-                    System.out.println(body.get(i).getX() + ", " + body.get(i).getY());
-                board[body.get(i).getX()][body.get(i).getY()] = new Tile(TileType.WALL, body.get(i).getX(), body.get(i).getY());
-            }
-        }
-
-        if (snake.equals(mySnake)) {
-            board[head.getX()][head.getY()] = new Tile(TileType.ME, head.getX(), head.getY());
-        } else {
-            board[head.getX()][head.getY()] = new Tile(TileType.HEADS, head.getX(), head.getY());
-
-            if (!mySnake.longerThan(snake)) {
-                List<Point> around = findAdjacent(head);
-                for (Point point : around) {
-                    if (exists(point)) {
-                        if (board[point.getX()][point.getY()].getTileType() == TileType.EMPTY
-                                || board[point.getX()][point.getY()].getTileType() == TileType.FOOD) {
-                            board[point.getX()][point.getY()].setTileType(TileType.FAKE_WALL);
-                        }
-                    }
-                }
-            }
-        }
-    }
-
 }
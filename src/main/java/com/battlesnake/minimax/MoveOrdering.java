@@ -0,0 +1,103 @@
+package com.battlesnake.minimax;
+
+import com.battlesnake.data.Move;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Puts the moves most likely to cut a node off first: the move the transposition table
+ * remembers, then the killer moves that cut off other nodes on the same ply, then the rest
+ * by history, a score per (snake, cell, move) that grows every time that move causes a cutoff.
+ *
+ * One per search thread, nothing in here is shared.
+ */
+public class MoveOrdering {
+
+    private static final int KILLERS = 2;
+    private static final int TABLE_MOVE = 1 << 30;
+    private static final int KILLER_MOVE = 1 << 29;
+
+    private final int cells;
+    private final int[] history;
+    private int[] killers = new int[64 * KILLERS];
+
+    // cutoffs, and how many of them came from the first move tried
+    private long cutoffs;
+    private long firstMoveCutoffs;
+
+    private final int[] scores = new int[4];
+
+    public MoveOrdering(int snakes, int cells) {
+        this.cells = cells;
+        history = new int[Math.max(1, snakes) * cells * 4];
+    }
+
+    public void order(List<Move> moves, Move tableMove, int ply, int snake, int cell) {
+        int size = moves.size();
+        for (int i = 0; i < size; i++) {
+            scores[i] = score(moves.get(i), tableMove, ply, snake, cell);
+        }
+        // insertion sort, there are never more than four moves
+        for (int i = 1; i < size; i++) {
+            Move move = moves.get(i);
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                moves.set(j + 1, moves.get(j));
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves.set(j + 1, move);
+            scores[j + 1] = score;
+        }
+    }
+
+    private int score(Move move, Move tableMove, int ply, int snake, int cell) {
+        if (move == tableMove) return TABLE_MOVE;
+        int killer = move.ordinal() + 1;
+        if (ply * KILLERS < killers.length) {
+            if (killers[ply * KILLERS] == killer) return KILLER_MOVE + 1;
+            if (killers[ply * KILLERS + 1] == killer) return KILLER_MOVE;
+        }
+        return history[index(snake, cell, move)];
+    }
+
+    // called when move cut a node off, tried is how many moves were searched before it
+    public void cutoff(int ply, int snake, int cell, Move move, int depth, int tried) {
+        cutoffs++;
+        if (tried == 0) firstMoveCutoffs++;
+
+        if ((ply + 1) * KILLERS > killers.length) {
+            killers = Arrays.copyOf(killers, (ply + 1) * KILLERS * 2);
+        }
+        int killer = move.ordinal() + 1;
+        if (killers[ply * KILLERS] != killer) {
+            killers[ply * KILLERS + 1] = killers[ply * KILLERS];
+            killers[ply * KILLERS] = killer;
+        }
+
+        int index = index(snake, cell, move);
+        history[index] = Math.min(history[index] + depth * depth, KILLER_MOVE - 1);
+    }
+
+    // between iterations: killers belong to the old tree, history fades so new cutoffs count more
+    public void age() {
+        Arrays.fill(killers, 0);
+        for (int i = 0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+    }
+
+    private int index(int snake, int cell, Move move) {
+        return ((snake % (history.length / (cells * 4))) * cells + cell) * 4 + move.ordinal();
+    }
+
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    public double firstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+}
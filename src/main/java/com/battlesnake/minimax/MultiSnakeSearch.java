@@ -0,0 +1,204 @@
+package com.battlesnake.minimax;
+
+import com.battlesnake.board.BitBoard;
+import com.battlesnake.board.GameState;
+import com.battlesnake.board.Grid;
+import com.battlesnake.board.Territory;
+import com.battlesnake.data.Move;
+import com.battlesnake.data.MoveValue;
+import com.battlesnake.timing.Deadline;
+
+/*
+ * Searches every snake on the board, one snake per ply in turn order starting with ours.
+ *
+ * PARANOID assumes all opponents work together against us, which turns the game back into
+ * two players so alpha-beta applies unchanged. MAX_N lets every snake maximise its own score.
+ * Scores are Voronoi territory: the cells a snake reaches before anyone else. They are never
+ * negative and never add up to more than the board, which is what max-n shallow pruning needs.
+ */
+public class MultiSnakeSearch implements SearchWorker {
+
+    public enum Mode {
+        PARANOID, MAX_N
+    }
+
+    private static final int LOSS = -1;
+
+    private final BitBoard board;
+    private final Grid grid;
+    private final GameState state;
+    private final Mode mode;
+    private final int me;
+    private final int snakeCount;
+    private final int maxSum;
+
+    // snakes that ran out of moves earlier on the current line
+    private final boolean[] dead;
+
+    // max-n score vectors, one per ply
+    private int[][] scores = new int[0][];
+
+    private final Territory territory;
+
+    private int maxDepth;
+    private Move bestMove;
+    private Deadline deadline;
+    private boolean aborted;
+    private long nodes;
+
+    // searches on the state's board, from the position it is loaded with
+    public MultiSnakeSearch(GameState state, Mode mode) {
+        this.board = state.getBoard();
+        this.grid = board.getGrid();
+        this.mode = mode;
+        this.state = state;
+        me = state.getMe();
+        snakeCount = state.getSnakeCount();
+        maxSum = grid.getCells();
+
+        dead = new boolean[snakeCount];
+        territory = new Territory(grid);
+    }
+
+    // without a table the copy would only search the same tree again on another thread
+    @Override
+    public SearchWorker copy() {
+        return null;
+    }
+
+    // searches maxDepth plies, returns null when the deadline cut the search short
+    @Override
+    public MoveValue search(int maxDepth) {
+        if (me < 0) return null;
+        this.maxDepth = maxDepth;
+        if (scores.length <= maxDepth) {
+            scores = new int[maxDepth + 1][snakeCount];
+        }
+        aborted = false;
+        bestMove = null;
+
+        double value;
+        if (mode == Mode.PARANOID) {
+            value = paranoid(0, me, LOSS, maxSum + 1);
+        } else {
+            maxN(0, me, maxSum + 1);
+            value = scores[0][me];
+        }
+        if (aborted || bestMove == null) return null;
+        return new MoveValue(value, bestMove);
+    }
+
+    private double paranoid(int depth, int snake, double alpha, double beta) {
+        if (deadline != null && deadline.expired()) aborted = true;
+        if (aborted) return 0;
+        nodes++;
+
+        if (depth == maxDepth || alive() <= 1) {
+            territory(scores[depth]);
+            return dead[me] ? LOSS : scores[depth][me];
+        }
+
+        int next = nextAlive(snake);
+        boolean maximizing = snake == me;
+        double best = maximizing ? LOSS - 1 : maxSum + 2;
+        boolean moved = false;
+        for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+            if (!legal(snake, direction)) continue;
+            moved = true;
+            state.makeMove(snake, direction);
+            double value = paranoid(depth + 1, next, alpha, beta);
+            state.unmakeMove();
+            if (aborted) return best;
+
+            if (maximizing ? value > best : value < best) {
+                best = value;
+                if (depth == 0) bestMove = Grid.move(direction);
+            }
+            if (maximizing) alpha = Math.max(alpha, value);
+            else beta = Math.min(beta, value);
+            if (beta <= alpha) return best; // pruning
+        }
+        if (moved) return best;
+
+        // boxed in: we lose, an opponent drops out and the others play on
+        if (maximizing) return LOSS;
+        dead[snake] = true;
+        double value = paranoid(depth + 1, nextAlive(snake), alpha, beta);
+        dead[snake] = false;
+        return value;
+    }
+
+    // leaves the scores for this ply in scores[depth], stops early once the parent can't use them
+    private void maxN(int depth, int snake, int bound) {
+        if (deadline != null && deadline.expired()) aborted = true;
+        if (aborted) return;
+        nodes++;
+
+        int[] best = scores[depth];
+        if (depth == maxDepth || alive() <= 1) {
+            territory(best);
+            return;
+        }
+
+        int next = nextAlive(snake);
+        boolean moved = false;
+        for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+            if (!legal(snake, direction)) continue;
+            state.makeMove(snake, direction);
+            // the child may stop as soon as its snake can't leave us more than we already have
+            maxN(depth + 1, next, moved ? maxSum - best[snake] : maxSum + 1);
+            state.unmakeMove();
+            if (aborted) return;
+
+            int[] child = scores[depth + 1];
+            if (!moved || child[snake] > best[snake]) {
+                System.arraycopy(child, 0, best, 0, snakeCount);
+                if (depth == 0) bestMove = Grid.move(direction);
+            }
+            moved = true;
+            if (best[snake] >= bound) return; // shallow pruning
+        }
+        if (moved) return;
+
+        dead[snake] = true;
+        maxN(depth + 1, nextAlive(snake), bound);
+        dead[snake] = false;
+        System.arraycopy(scores[depth + 1], 0, best, 0, snakeCount);
+    }
+
+    // heads are blocked too, a head-on collision isn't something one snake can choose alone
+    private boolean legal(int snake, int direction) {
+        int cell = state.target(snake, direction);
+        return cell != Grid.NONE && !board.isFilled(cell) && !board.isHead(cell);
+    }
+
+    private int nextAlive(int snake) {
+        for (int i = 1; i <= snakeCount; i++) {
+            int next = (snake + i) % snakeCount;
+            if (!dead[next]) return next;
+        }
+        return snake;
+    }
+
+    private int alive() {
+        int alive = 0;
+        for (int i = 0; i < snakeCount; i++) {
+            if (!dead[i]) alive++;
+        }
+        return alive;
+    }
+
+    private void territory(int[] out) {
+        territory.compute(state, dead, out);
+    }
+
+    @Override
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+}
@@ -0,0 +1,93 @@
+package com.battlesnake.minimax;
+
+import com.battlesnake.data.MoveValue;
+import com.battlesnake.timing.Deadline;
+import com.battlesnake.timing.HelperTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Lazy SMP: every worker runs its own iterative deepening on a copy of the board, and they
+ * only share the transposition table. Helpers start on alternating depths so they reach
+ * different parts of the tree first, and what one of them stores cuts the others' searches.
+ * The answer comes from whichever worker finished the deepest iteration.
+ *
+ * A search without a table has nothing to share, so it hands out no copies and runs alone.
+ */
+public class ParallelSearch {
+
+    private final ForkJoinPool pool;
+    private final int workers;
+    private final int maxDepth;
+
+    private long nodes;
+    private int completedDepth;
+
+    public ParallelSearch(ForkJoinPool pool, int workers, int maxDepth) {
+        this.pool = pool;
+        this.workers = Math.max(1, workers);
+        this.maxDepth = maxDepth;
+    }
+
+    public MoveValue search(SearchWorker main, Deadline deadline) {
+        // cancelled once the main search is done, so the helpers don't outlive the request
+        Deadline stop = new Deadline(deadline.getEndNanos());
+        main.setDeadline(stop);
+
+        // copies are taken before the main search starts moving pieces on its board
+        List<HelperTask<Result>> helpers = new ArrayList<>();
+        for (int i = 1; i < workers; i++) {
+            SearchWorker helper = main.copy();
+            if (helper == null) break;
+            IterativeDeepening iterations = new IterativeDeepening(1 + (i & 1), maxDepth);
+            helpers.add(new HelperTask<>(pool, () -> new Result(iterations.search(helper::search, stop),
+                    iterations.getCompletedDepth(), helper.getNodes())));
+        }
+
+        IterativeDeepening iterations = new IterativeDeepening(maxDepth);
+        MoveValue best = iterations.search(main::search, stop);
+        completedDepth = iterations.getCompletedDepth();
+        nodes = main.getNodes();
+        stop.cancel();
+
+        // helpers still queued behind other games are dropped, the rest stop at the cancelled deadline
+        for (HelperTask<Result> helper : helpers) {
+            Result result;
+            try {
+                result = helper.finish();
+            } catch (RuntimeException e) {
+                System.out.println("Search helper failed: " + e);
+                continue;
+            }
+            if (result == null) continue;
+            nodes += result.nodes;
+            if (result.best != null && result.best.returnMove != null && result.depth > completedDepth) {
+                best = result.best;
+                completedDepth = result.depth;
+            }
+        }
+        return best;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    private static class Result {
+        private final MoveValue best;
+        private final int depth;
+        private final long nodes;
+
+        private Result(MoveValue best, int depth, long nodes) {
+            this.best = best;
+            this.depth = depth;
+            this.nodes = nodes;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.battlesnake.minimax;
+
+import com.battlesnake.timing.Deadline;
+
+// A search that can hand a copy of itself to another thread
+public interface SearchWorker extends DepthSearch {
+
+    // a copy over its own board, sharing anything that is safe to share between threads, or
+    // null when the search has nothing to share and a copy would only repeat its work
+    SearchWorker copy();
+
+    void setDeadline(Deadline deadline);
+
+    long getNodes();
+}
@@ -0,0 +1,247 @@
+package com.battlesnake.minimax;
+
+import com.battlesnake.board.BitBoard;
+import com.battlesnake.board.GameSimulator;
+import com.battlesnake.board.GameState;
+import com.battlesnake.board.Grid;
+import com.battlesnake.board.Territory;
+import com.battlesnake.data.Move;
+import com.battlesnake.data.MoveValue;
+import com.battlesnake.timing.Deadline;
+
+/*
+ * Searches whole turns: every node is a payoff matrix with our moves as rows and the
+ * opponents' joint moves as columns, and each cell is one simultaneous turn applied by
+ * GameSimulator, so a head-on collision is decided the way the server decides it.
+ * We take the row whose worst column is best.
+ *
+ * Pruning:
+ *  - moves straight into a wall or a body are dropped from both sides before the matrix is
+ *    built. Ours lose on the spot and an opponent's wins for us in a duel, so those are
+ *    dominated. With more snakes about, an opponent could die to make room for another one;
+ *    we take it that nobody throws its game away to hurt us,
+ *  - a row stops as soon as one of its columns is no better than the best row so far,
+ *  - columns are tried in the order of their values in the row before, so the column that
+ *    sinks a row usually comes first.
+ *
+ * Only the nearest opponents get a column each, the rest keep to their first safe move.
+ */
+public class SimultaneousSearch implements SearchWorker {
+
+    private static final int LOSS = -1;
+
+    // opponents whose moves are enumerated, at most 4 moves each
+    private static final int ENUMERATED = 3;
+    private static final int MAX_COLUMNS = 64;
+
+    private final BitBoard board;
+    private final Grid grid;
+    private final GameState state;
+    private final GameSimulator simulator;
+    private final Territory territory;
+    private final int me;
+    private final int snakeCount;
+    private final int win;
+
+    private final int[] scores;
+
+    // per turn scratch, allocated once for the deepest search
+    private int[][] opponents = new int[0][];
+    private int[][] directions = new int[0][];
+    private int[][] actions = new int[0][];
+    private int[][] actionCounts = new int[0][];
+    private int[][] columnOrder = new int[0][];
+    private double[][] columnValues = new double[0][];
+
+    private int maxDepth;
+    private Move bestMove;
+    private Deadline deadline;
+    private boolean aborted;
+    private long nodes;
+
+    // searches on the state's board, from the position it is loaded with
+    public SimultaneousSearch(GameState state) {
+        this.board = state.getBoard();
+        this.grid = board.getGrid();
+        this.state = state;
+        simulator = new GameSimulator(state);
+        territory = new Territory(grid);
+        me = state.getMe();
+        snakeCount = state.getSnakeCount();
+        win = grid.getCells() + 1;
+        scores = new int[snakeCount];
+    }
+
+    // without a table the copy would only search the same tree again on another thread
+    @Override
+    public SearchWorker copy() {
+        return null;
+    }
+
+    // searches maxDepth turns, returns null when the deadline cut the search short
+    @Override
+    public MoveValue search(int maxDepth) {
+        if (me < 0) return null;
+        this.maxDepth = maxDepth;
+        if (directions.length < maxDepth) {
+            opponents = new int[maxDepth + 1][ENUMERATED];
+            directions = new int[maxDepth][snakeCount];
+            actions = new int[maxDepth][snakeCount * Grid.DIRECTIONS];
+            actionCounts = new int[maxDepth][snakeCount];
+            columnOrder = new int[maxDepth][MAX_COLUMNS];
+            columnValues = new double[maxDepth][MAX_COLUMNS];
+        }
+        aborted = false;
+        bestMove = null;
+
+        double value = turn(0, LOSS, win);
+        if (aborted || bestMove == null) return null;
+        return new MoveValue(value, bestMove);
+    }
+
+    private double turn(int depth, double alpha, double beta) {
+        if (deadline != null && deadline.expired()) aborted = true;
+        if (aborted) return 0;
+        nodes++;
+
+        if (!state.isAlive(me)) return LOSS;
+        int[] enumeratedSnakes = opponents[depth];
+        int enumerated = nearestOpponents(enumeratedSnakes);
+        if (depth == maxDepth || enumerated == 0) return evaluate();
+
+        int[] moves = actions[depth];
+        int[] counts = actionCounts[depth];
+        for (int snake = 0; snake < snakeCount; snake++) {
+            if (state.isAlive(snake)) counts[snake] = safeMoves(snake, moves, snake * Grid.DIRECTIONS);
+        }
+
+        int columns = 1;
+        for (int i = 0; i < enumerated; i++) {
+            columns *= counts[enumeratedSnakes[i]];
+        }
+        int[] order = columnOrder[depth];
+        double[] values = columnValues[depth];
+        for (int column = 0; column < columns; column++) {
+            order[column] = column;
+        }
+
+        int[] turn = directions[depth];
+        for (int snake = 0; snake < snakeCount; snake++) {
+            if (state.isAlive(snake)) turn[snake] = moves[snake * Grid.DIRECTIONS];
+        }
+
+        double best = LOSS - 1;
+        for (int row = 0; row < counts[me]; row++) {
+            turn[me] = moves[me * Grid.DIRECTIONS + row];
+            double rowValue = win + 1;
+            int evaluated = 0;
+            for (; evaluated < columns; evaluated++) {
+                int column = order[evaluated];
+                setColumn(column, enumeratedSnakes, enumerated, moves, counts, turn);
+                simulator.step(turn);
+                double value = turn(depth + 1, Math.max(alpha, best), Math.min(beta, rowValue));
+                simulator.undo();
+                if (aborted) return best;
+
+                values[column] = value;
+                if (value < rowValue) rowValue = value;
+                // dominated by the best row, the rest of its columns can't change that
+                if (rowValue <= Math.max(alpha, best)) {
+                    evaluated++;
+                    break;
+                }
+            }
+            sortColumns(order, values, evaluated);
+
+            if (rowValue > best) {
+                best = rowValue;
+                if (depth == 0) bestMove = Grid.move(turn[me]);
+            }
+            if (best >= beta) return best; // pruning
+        }
+        return best;
+    }
+
+    // decodes a column into one move for each enumerated opponent
+    private void setColumn(int column, int[] opponents, int enumerated, int[] moves, int[] counts, int[] turn) {
+        for (int i = 0; i < enumerated; i++) {
+            int snake = opponents[i];
+            turn[snake] = moves[snake * Grid.DIRECTIONS + column % counts[snake]];
+            column /= counts[snake];
+        }
+    }
+
+    // insertion sort on the columns evaluated this row, the lowest first
+    private void sortColumns(int[] order, double[] values, int evaluated) {
+        for (int i = 1; i < evaluated; i++) {
+            int column = order[i];
+            int j = i - 1;
+            while (j >= 0 && values[order[j]] > values[column]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = column;
+        }
+    }
+
+    // moves into free cells, or a single move to die on when there are none
+    private int safeMoves(int snake, int[] moves, int offset) {
+        int count = 0;
+        for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+            int cell = state.target(snake, direction);
+            if (cell != Grid.NONE && !board.isFilled(cell) && !board.isHead(cell)) {
+                moves[offset + count++] = direction;
+            }
+        }
+        if (count == 0) moves[offset + count++] = 0;
+        return count;
+    }
+
+    // the living opponents closest to our head, returns how many were found
+    private int nearestOpponents(int[] opponents) {
+        int head = state.getSnake(me).head();
+        int found = 0;
+        while (found < ENUMERATED) {
+            int nearest = Grid.NONE;
+            int nearestDistance = Integer.MAX_VALUE;
+            for (int snake = 0; snake < snakeCount; snake++) {
+                if (snake == me || !state.isAlive(snake) || chosen(opponents, snake, found)) continue;
+                int distance = grid.distance(head, state.getSnake(snake).head());
+                if (distance < nearestDistance) {
+                    nearest = snake;
+                    nearestDistance = distance;
+                }
+            }
+            if (nearest == Grid.NONE) break;
+            opponents[found++] = nearest;
+        }
+        return found;
+    }
+
+    private boolean chosen(int[] opponents, int snake, int found) {
+        for (int i = 0; i < found; i++) {
+            if (opponents[i] == snake) return true;
+        }
+        return false;
+    }
+
+    private double evaluate() {
+        int opponentsAlive = 0;
+        for (int snake = 0; snake < snakeCount; snake++) {
+            if (snake != me && state.isAlive(snake)) opponentsAlive++;
+        }
+        if (opponentsAlive == 0) return win;
+        territory.compute(state, null, scores);
+        return scores[me];
+    }
+
+    @Override
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+}
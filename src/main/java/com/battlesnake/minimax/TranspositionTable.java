@@ -0,0 +1,168 @@
+package com.battlesnake.minimax;
+
+import com.battlesnake.data.Move;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Fixed size table of searched positions shared by every search thread.
+ *
+ * Each entry is two longs: the position hash xor'ed with the data, and the data itself.
+ * A reader only accepts an entry whose two halves agree, so a torn write from another
+ * thread reads as a miss and no locking is needed.
+ *
+ * Every game searches through its own view from forGame: the entries are shared, the
+ * generation isn't, so one game starting a search doesn't age out what another is using.
+ * The hash says whose point of view a score is from, so a hit from another game is still right.
+ */
+public class TranspositionTable {
+
+    public static final long MISS = 0;
+
+    public static final int EXACT = 1;
+    public static final int LOWER = 2;
+    public static final int UPPER = 3;
+
+    private static final int ENTRY_BYTES = 16;
+
+    // data layout: score (32 float bits) | depth (8) | bound (2) | move + 1 (3) | generation (8)
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int MOVE_SHIFT = 42;
+    private static final int GENERATION_SHIFT = 45;
+
+    private static final Move[] MOVES = Move.values();
+
+    private final AtomicLongArray entries;
+    private final int mask;
+    private volatile int generation;
+
+    private final LongAdder probes;
+    private final LongAdder hits;
+    private final LongAdder stores;
+    private final LongAdder overwrites;
+
+    public TranspositionTable(int megabytes) {
+        long bytes = Math.max(1L, megabytes) << 20;
+        int size = (int) Math.min(Long.highestOneBit(bytes / ENTRY_BYTES), 1 << 28);
+        entries = new AtomicLongArray(size * 2);
+        mask = size - 1;
+        probes = new LongAdder();
+        hits = new LongAdder();
+        stores = new LongAdder();
+        overwrites = new LongAdder();
+    }
+
+    private TranspositionTable(TranspositionTable shared) {
+        entries = shared.entries;
+        mask = shared.mask;
+        probes = shared.probes;
+        hits = shared.hits;
+        stores = shared.stores;
+        overwrites = shared.overwrites;
+    }
+
+    // the same entries with a generation of the game's own
+    public TranspositionTable forGame() {
+        return new TranspositionTable(this);
+    }
+
+    // called once per search, so entries from older searches are replaced first
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    public long probe(long hash) {
+        probes.increment();
+        int index = ((int) hash & mask) << 1;
+        long data = entries.get(index + 1);
+        if (data == MISS || (entries.get(index) ^ data) != hash) return MISS;
+        hits.increment();
+        return data;
+    }
+
+    public void store(long hash, int depth, int bound, double score, Move move) {
+        int index = ((int) hash & mask) << 1;
+        long oldData = entries.get(index + 1);
+        if (oldData != MISS) {
+            boolean samePosition = (entries.get(index) ^ oldData) == hash;
+            boolean stale = generation(oldData) != generation;
+            if (!samePosition && !stale && depth(oldData) > depth) return;
+            if (!samePosition) overwrites.increment();
+        }
+
+        long data = (Float.floatToRawIntBits((float) score) & 0xFFFFFFFFL)
+                | (long) Math.min(depth, 0xFF) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) (move == null ? 0 : move.ordinal() + 1) << MOVE_SHIFT
+                | (long) generation << GENERATION_SHIFT;
+        entries.lazySet(index, hash ^ data);
+        entries.lazySet(index + 1, data);
+        stores.increment();
+    }
+
+    public static double score(long data) {
+        return Float.intBitsToFloat((int) data);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    public static Move move(long data) {
+        int move = (int) (data >>> MOVE_SHIFT) & 0x7;
+        return move == 0 ? null : MOVES[move - 1];
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> GENERATION_SHIFT) & 0xFF;
+    }
+
+    // true when a stored entry settles the node without searching it
+    public static boolean cutoff(long data, int depth, double alpha, double beta) {
+        if (data == MISS || depth(data) < depth) return false;
+        double score = score(data);
+        switch (bound(data)) {
+            case EXACT:
+                return true;
+            case LOWER:
+                return score >= beta;
+            case UPPER:
+                return score <= alpha;
+            default:
+                return false;
+        }
+    }
+
+    public int size() {
+        return mask + 1;
+    }
+
+    public double hitRate() {
+        long probed = probes.sum();
+        return probed == 0 ? 0 : (double) hits.sum() / probed;
+    }
+
+    public double overwriteRate() {
+        long stored = stores.sum();
+        return stored == 0 ? 0 : (double) overwrites.sum() / stored;
+    }
+
+    public void resetStats() {
+        probes.reset();
+        hits.reset();
+        stores.reset();
+        overwrites.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TT entries: %d, probes: %d, hit rate: %.3f, stores: %d, overwrite rate: %.3f",
+                size(), probes.sum(), hitRate(), stores.sum(), overwriteRate());
+    }
+}
@@ -0,0 +1,10 @@
+package com.battlesnake.pathfinding;
+
+import com.battlesnake.board.BitBoard;
+
+// What stepping onto each cell costs a route, worked out once for a board
+public interface CostModel {
+
+    // costs[cell] for every cell of the board, never negative
+    void build(BitBoard board, int[] costs);
+}
@@ -1,163 +1,249 @@
 package com.battlesnake.pathfinding;
 
-import com.battlesnake.board.Tile;
-import com.battlesnake.board.TileType;
-import com.battlesnake.math.Point;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.PriorityQueue;
-
+import com.battlesnake.board.BitBoard;
+import com.battlesnake.board.Grid;
+import com.battlesnake.data.Move;
+import com.battlesnake.timing.Deadline;
+
+import java.util.Arrays;
+
+/*
+ * A* over cell indices.
+ *
+ * Stepping onto a cell costs whatever the cost model says, read from a cost map that is built
+ * once per board, by default on the first route of a turn. The heuristic is the Manhattan
+ * distance to the goal. routes expands the same way with no heuristic, Dijkstra, to find the
+ * nearest goal of several kinds in one pass.
+ *
+ * Everything the search keeps per cell lives in flat arrays owned by the thread, so a route
+ * allocates nothing. A cell's entries only count when its stamp matches the current search,
+ * which saves clearing the arrays between searches, and the open list is a binary heap that
+ * moves a cell up when a cheaper way to it turns up instead of queueing it twice.
+ */
 public class Pathfinding {
 
-    private Tile[][] tiles;
-    private Tile currentTile;
-    private Point endPosition;
-    private int maxWidth;
-    private int maxHeight;
-    private int newestScore;
-
-    private final TileScoreComparator tileScoreComparator = new TileScoreComparator();
-
-    public List<Tile> getRoute(Tile[][] tiles, Point startPosition, Point endPosition) {
-        this.tiles = tiles;
-        this.maxWidth = tiles.length;
-        this.maxHeight = tiles[0].length;
-        this.endPosition = endPosition;
+    // what getNewestScore gives when the goal can't be reached
+    public static final int NO_ROUTE = 9999999;
 
-        resetAllTiles();
+    // how many cells are expanded between looks at the clock
+    private static final int DEADLINE_CHECK = 64;
 
-        PriorityQueue<Tile> queue = new PriorityQueue<>(tileScoreComparator);
-        queue.add(tiles[startPosition.getX()][startPosition.getY()]);
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
 
-        boolean routeAvailable = false;
+    private final CostModel model;
+    private int[] costs = new int[0];
+    private BitBoard costsBoard;
 
-        while (!queue.isEmpty()) {
+    private BitBoard board;
+    private Grid grid;
+    private int end;
+    private int newestScore;
+    private Deadline deadline;
 
-            do {
-                if (queue.isEmpty()) break;
-                currentTile = queue.remove();
-            } while (!currentTile.isOpen());
+    public Pathfinding() {
+        this(WeightedCostModel.DEFAULT);
+    }
 
-            currentTile.setOpen(false);
+    public Pathfinding(CostModel model) {
+        this.model = model;
+    }
 
-            int currentX = currentTile.getRowNumber();
-            int currentY = currentTile.getColNumber();
-            int currentScore = currentTile.getScore();
+    // the costs for this board as it is now, the routes keep using them until the next call
+    public void buildCosts(BitBoard board) {
+        if (costs.length != board.getGrid().getCells()) costs = new int[board.getGrid().getCells()];
+        model.build(board, costs);
+        costsBoard = board;
+    }
 
-            if (currentTile.getRowNumber() == endPosition.getX() && currentTile.getColNumber() == endPosition.getY()) {
-                // at the end, return path
-                routeAvailable = true;
-                break;
+    // the first move on the cheapest route from start to end, null when there is none
+    public Move route(BitBoard board, int start, int end) {
+        if (board != costsBoard) buildCosts(board);
+        this.board = board;
+        this.grid = board.getGrid();
+        this.end = end;
+        newestScore = NO_ROUTE;
+
+        Scratch scratch = SCRATCH.get();
+        scratch.begin(grid.getCells());
+        scratch.open(start, 0, grid.distance(start, end), Grid.NONE);
+
+        int expanded = 0;
+        while (scratch.size > 0) {
+            // out of time, no route is better than no answer
+            if (deadline != null && ++expanded % DEADLINE_CHECK == 0 && deadline.expired()) break;
+
+            int cell = scratch.pop();
+            if (cell == end) {
+                newestScore = scratch.g[cell];
+                return firstMove(scratch, start);
             }
 
-            // loop through neighbours and get scores. add these onto temp open list
-            int smallestScore = 9999999;
-            for (int x = -1; x <= 1; x+=2) {
-                int nextX = currentX + x;
-                // currentY is now nextY
-                if (validTile(nextX, currentY)) {
-                    int score = getScoreOfTile(tiles[nextX][currentY], currentScore);
-                    if (score < smallestScore) {
-                        smallestScore = score;
-                    }
-                    Tile thisTile = tiles[nextX][currentY];
-                    thisTile.setScore(score);
-                    queue.add(thisTile);
-                    thisTile.setParent(currentTile);
+            for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+                int next = grid.neighbour(cell, direction);
+                if (!enterable(scratch, next)) continue;
+                int g = scratch.g[cell] + costs[next];
+                if (!scratch.seen(next)) {
+                    scratch.open(next, g, g + grid.distance(next, end), cell);
+                } else if (g < scratch.g[next]) {
+                    scratch.decrease(next, g, g + grid.distance(next, end), cell);
                 }
             }
+        }
+        return null;
+    }
 
-            for (int y = -1; y <= 1; y+=2) {
-                // currentX is now nextX
-                int nextY = currentY + y;
-                if (validTile(currentX, nextY)) {
-                    int score = getScoreOfTile(tiles[currentX][nextY], currentScore);
-                    if (score < smallestScore) {
-                        smallestScore = score;
-                    }
-                    Tile thisTile = tiles[currentX][nextY];
-                    thisTile.setScore(score);
-                    queue.add(thisTile);
-                    thisTile.setParent(currentTile);
+    // one expansion from start for every kind of goal at once, cheapest first, until each kind
+    // has its nearest goal or nothing more can be reached
+    public void routes(BitBoard board, int start, Routes routes) {
+        if (board != costsBoard) buildCosts(board);
+        this.board = board;
+        this.grid = board.getGrid();
+
+        Scratch scratch = SCRATCH.get();
+        scratch.begin(grid.getCells());
+        scratch.open(start, 0, 0, Grid.NONE);
+
+        int expanded = 0;
+        while (scratch.size > 0 && !routes.complete()) {
+            if (deadline != null && ++expanded % DEADLINE_CHECK == 0 && deadline.expired()) break;
+
+            int cell = scratch.pop();
+            // a goal on start itself is found at no cost and with no move, as route gives it
+            int kinds = routes.kinds(cell);
+            if (kinds != 0) routes.found(kinds, firstMove(scratch, start, cell), scratch.g[cell]);
+
+            for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+                int next = grid.neighbour(cell, direction);
+                if (!enterable(scratch, next)) continue;
+                int g = scratch.g[cell] + costs[next];
+                if (!scratch.seen(next)) {
+                    scratch.open(next, g, g, cell);
+                } else if (g < scratch.g[next]) {
+                    scratch.decrease(next, g, g, cell);
                 }
             }
-            newestScore = smallestScore;
-
         }
-
-        // get List of tiles using current tile
-        // returns reverse list btw
-        if (routeAvailable) return getPath(currentTile);
-        return new ArrayList<>();
     }
 
-    private void resetAllTiles() {
-        for (Tile[] tile : tiles) {
-            for (int col = 0; col < tiles[0].length; col++) {
-                tile[col].setOpen(true);
-                tile[col].setParent(null);
-                tile[col].setScore(0);
-
-            }
-        }
+    // walks the parents back from the goal to the cell next to start
+    private Move firstMove(Scratch scratch, int start) {
+        return firstMove(scratch, start, end);
     }
 
-    private List<Tile> getPath(Tile currentTile) {
-        List<Tile> path = new ArrayList<>();
-        while (currentTile != null) {
-            path.add(currentTile);
-            currentTile = currentTile.getParent();
+    private Move firstMove(Scratch scratch, int start, int cell) {
+        if (cell == start) return null;
+        while (scratch.parent[cell] != start) {
+            cell = scratch.parent[cell];
         }
-        return path;
+        return grid.moveBetween(start, cell);
     }
 
-    private int distanceScoreAway(Tile currentTile) {
-        return Math.abs(endPosition.getX() - currentTile.getColNumber()) + Math.abs(endPosition.getY() - currentTile.getRowNumber());
+    private boolean enterable(Scratch scratch, int cell) {
+        return cell != Grid.NONE && !scratch.closed(cell) && !board.isBlocked(cell);
     }
 
-    private int distanceFromEdges(Tile currentTile){
-        return Math.abs(currentTile.getX() - (maxWidth/2)) + Math.abs(currentTile.getY() - (maxHeight/2));
+    public int getNewestScore(){ return newestScore; }
+
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
     }
 
-    private int getScoreOfTile(Tile tile, int currentScore) {
-        int guessScoreLeft = distanceScoreAway(tile);
-        int centerCost = distanceFromEdges(tile);
-        int neighborCost = checkNeighbours(tile);
-        int extraMovementCost = 0;
-        if (tile.getTileType() == TileType.FAKE_WALL) {
-            extraMovementCost+=1000;
+    // one per thread, grown to the largest board the thread has searched
+    private static class Scratch {
+
+        private int[] g = new int[0];
+        private int[] f = new int[0];
+        private int[] parent = new int[0];
+        private int[] stamp = new int[0];
+        private int[] position = new int[0];
+        private int[] heap = new int[0];
+        private int size;
+
+        // a cell is seen when its stamp is generation, and closed when it is generation + 1
+        private int generation;
+
+        private void begin(int cells) {
+            if (stamp.length < cells) {
+                g = new int[cells];
+                f = new int[cells];
+                parent = new int[cells];
+                stamp = new int[cells];
+                position = new int[cells];
+                heap = new int[cells];
+                generation = 0;
+            }
+            if (generation > Integer.MAX_VALUE - 4) {
+                Arrays.fill(stamp, 0);
+                generation = 0;
+            }
+            generation += 2;
+            size = 0;
         }
-        if(tile.getTileType() == TileType.FOOD){
-            extraMovementCost -= 1;
+
+        private boolean seen(int cell) {
+            return stamp[cell] >= generation;
         }
-        int movementScore = currentScore + 1;
-        return guessScoreLeft + movementScore + extraMovementCost + centerCost + neighborCost;
-    }
 
-    private int checkNeighbours(Tile tile){
-        int filled = 0;
-        for (int x = -1; x <= 1; x+=2) {
-            if(!validTile(tile.getX()+x, tile.getY())) filled++;
+        private boolean closed(int cell) {
+            return stamp[cell] == generation + 1;
         }
-        for (int y = -1; y <= 1; y+=2) {
-            if(!validTile(tile.getX(), tile.getY()+y)) filled++;
+
+        private void open(int cell, int g, int f, int parent) {
+            stamp[cell] = generation;
+            this.g[cell] = g;
+            this.f[cell] = f;
+            this.parent[cell] = parent;
+            heap[size] = cell;
+            position[cell] = size;
+            up(size++);
+        }
+
+        private void decrease(int cell, int g, int f, int parent) {
+            this.g[cell] = g;
+            this.f[cell] = f;
+            this.parent[cell] = parent;
+            up(position[cell]);
         }
-        if(filled > 2) return filled * 1000;
-        return filled * 10;
-    }
 
-    private boolean validTile(int nextX, int nextY) {
-        if (nextX >= 0 && nextX < maxWidth) {
-            if (nextY >= 0 && nextY < maxHeight) {
-                return tiles[nextX][nextY].isOpen() &&
-                        tiles[nextX][nextY].getTileType() != TileType.WALL
-                        && tiles[nextX][nextY].getTileType() != TileType.FAKE_WALL;
+        private int pop() {
+            int cell = heap[0];
+            stamp[cell] = generation + 1;
+            size--;
+            if (size > 0) {
+                heap[0] = heap[size];
+                position[heap[0]] = 0;
+                down(0);
+            }
+            return cell;
+        }
 
+        private void up(int i) {
+            int cell = heap[i];
+            while (i > 0) {
+                int parentIndex = (i - 1) >>> 1;
+                int above = heap[parentIndex];
+                if (f[above] <= f[cell]) break;
+                heap[i] = above;
+                position[above] = i;
+                i = parentIndex;
             }
+            heap[i] = cell;
+            position[cell] = i;
         }
-        return false;
-    }
 
-    public int getNewestScore(){ return newestScore; }
+        private void down(int i) {
+            int cell = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && f[heap[child + 1]] < f[heap[child]]) child++;
+                if (f[heap[child]] >= f[cell]) break;
+                heap[i] = heap[child];
+                position[heap[i]] = i;
+                i = child;
+            }
+            heap[i] = cell;
+            position[cell] = i;
+        }
+    }
 }
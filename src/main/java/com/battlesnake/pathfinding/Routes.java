@@ -0,0 +1,78 @@
+package com.battlesnake.pathfinding;
+
+import com.battlesnake.data.Move;
+
+import java.util.Arrays;
+
+/*
+ * Goals of a few kinds for one multi-goal search, and what the search found: for every kind,
+ * the first move towards its nearest goal and what the route there costs.
+ *
+ * Goal kinds are small ints picked by the caller, below MAX_KINDS. A cell can be a goal of
+ * more than one kind.
+ */
+public class Routes {
+
+    public static final int MAX_KINDS = 32;
+
+    private final int[] goalKinds;
+    private final int[] goalCells;
+    private int goals;
+
+    // kinds with goals, and kinds with a route found
+    private int wanted;
+    private int found;
+    private final Move[] moves = new Move[MAX_KINDS];
+    private final int[] costs = new int[MAX_KINDS];
+
+    public Routes(int cells) {
+        goalKinds = new int[cells];
+        goalCells = new int[cells];
+    }
+
+    public void clear() {
+        for (int i = 0; i < goals; i++) {
+            goalKinds[goalCells[i]] = 0;
+        }
+        goals = 0;
+        wanted = 0;
+        found = 0;
+        Arrays.fill(moves, null);
+    }
+
+    public void addGoal(int kind, int cell) {
+        if (goalKinds[cell] == 0) goalCells[goals++] = cell;
+        goalKinds[cell] |= 1 << kind;
+        wanted |= 1 << kind;
+    }
+
+    public boolean isFound(int kind) {
+        return (found & 1 << kind) != 0;
+    }
+
+    // null when no goal of the kind could be reached
+    public Move getMove(int kind) {
+        return moves[kind];
+    }
+
+    public int getCost(int kind) {
+        return costs[kind];
+    }
+
+    int kinds(int cell) {
+        return goalKinds[cell] & ~found;
+    }
+
+    boolean complete() {
+        return (wanted & ~found) == 0;
+    }
+
+    void found(int kinds, Move move, int cost) {
+        for (int kind = 0; kind < MAX_KINDS; kind++) {
+            if ((kinds & 1 << kind) == 0) continue;
+            moves[kind] = move;
+            costs[kind] = cost;
+        }
+        found |= kinds;
+    }
+}
@@ -0,0 +1,54 @@
+package com.battlesnake.pathfinding;
+
+import com.battlesnake.board.BitBoard;
+import com.battlesnake.board.Grid;
+
+/*
+ * The costs the routes have always used, each with its own weight: a step, a surcharge next
+ * to a head that beats us, a discount for food, the distance from the center, and a penalty
+ * per blocked side that jumps once a cell is closed in on three sides.
+ */
+public class WeightedCostModel implements CostModel {
+
+    public static final WeightedCostModel DEFAULT = new WeightedCostModel(1, 1000, 1, 1, 10, 1000);
+
+    private final int step;
+    private final int danger;
+    private final int food;
+    private final int center;
+    private final int blockedSide;
+    private final int boxedInSide;
+
+    public WeightedCostModel(int step, int danger, int food, int center, int blockedSide, int boxedInSide) {
+        this.step = step;
+        this.danger = danger;
+        this.food = food;
+        this.center = center;
+        this.blockedSide = blockedSide;
+        this.boxedInSide = boxedInSide;
+    }
+
+    @Override
+    public void build(BitBoard board, int[] costs) {
+        Grid grid = board.getGrid();
+        int middleX = grid.getWidth() / 2;
+        int middleY = grid.getHeight() / 2;
+        for (int cell = 0; cell < grid.getCells(); cell++) {
+            int cost = step;
+            if (board.isDanger(cell)) {
+                cost += danger;
+            } else if (board.isFood(cell)) {
+                cost -= food;
+            }
+            cost += center * (Math.abs(grid.getX(cell) - middleX) + Math.abs(grid.getY(cell) - middleY));
+
+            int blocked = 0;
+            for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+                int next = grid.neighbour(cell, direction);
+                if (next == Grid.NONE || board.isBlocked(next)) blocked++;
+            }
+            cost += blocked * (blocked > 2 ? boxedInSide : blockedSide);
+            costs[cell] = Math.max(0, cost);
+        }
+    }
+}
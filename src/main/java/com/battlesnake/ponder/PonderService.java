@@ -0,0 +1,93 @@
+package com.battlesnake.ponder;
+
+import com.battlesnake.data.Move;
+import com.battlesnake.minimax.IterativeDeepening;
+import com.battlesnake.minimax.Minimax;
+import com.battlesnake.timing.Deadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Keeps searching while the server plays out the turn we just answered.
+ *
+ * Our move is played for good, then every reply the enemy has is searched in turn until the
+ * next /move for the game arrives. The results land in the shared transposition table under
+ * the Zobrist hash of each predicted position, so when the real position is one of them the
+ * next search starts from a warm table.
+ *
+ * At most one ponder runs per game, on a fixed number of threads with a short queue, and a
+ * ponder never outlives max-ms even when the next request never comes.
+ */
+@Component
+public class PonderService {
+
+    private final ThreadPoolExecutor executor;
+    private final int maxMillis;
+    private final int maxDepth;
+
+    private final ConcurrentMap<String, Deadline> running = new ConcurrentHashMap<>();
+
+    public PonderService(@Value("${snake.ponder.threads:1}") int threads,
+                         @Value("${snake.ponder.max-ms:1000}") int maxMillis,
+                         @Value("${snake.search.max-depth:12}") int maxDepth) {
+        this.maxMillis = maxMillis;
+        this.maxDepth = maxDepth;
+        int size = Math.max(1, threads);
+        executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(size * 2));
+    }
+
+    // search must already own its board, the request's board is gone once we have answered
+    public void ponder(String gameId, Minimax search, Move move) {
+        if (gameId == null || move == null || maxMillis <= 0) return;
+        Deadline deadline = Deadline.in(maxMillis);
+        Deadline previous = running.put(gameId, deadline);
+        if (previous != null) previous.cancel();
+        try {
+            executor.execute(() -> run(gameId, search, move, deadline));
+        } catch (RejectedExecutionException e) {
+            // every thread is busy with other games, skip this turn rather than queue up
+            running.remove(gameId, deadline);
+        }
+    }
+
+    private void run(String gameId, Minimax search, Move move, Deadline deadline) {
+        try {
+            List<Move> replies = search.playMove(move);
+            for (int i = 0; i < replies.size() && !deadline.expired(); i++) {
+                Deadline slice = deadline.within(deadline.remainingNanos() / (replies.size() - i));
+                search.setDeadline(slice);
+                search.playEnemyMove(replies.get(i));
+                new IterativeDeepening(maxDepth).search(search, slice);
+                search.undoMove();
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Ponder failed: " + e);
+        } finally {
+            running.remove(gameId, deadline);
+        }
+    }
+
+    // stops the game's ponder, called as soon as its next request or its /end arrives
+    public void cancel(String gameId) {
+        if (gameId == null) return;
+        Deadline deadline = running.remove(gameId);
+        if (deadline != null) deadline.cancel();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Deadline deadline : running.values()) {
+            deadline.cancel();
+        }
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,113 @@
+package com.battlesnake.session;
+
+import com.battlesnake.board.BitBoard;
+import com.battlesnake.board.BoardSnapshot;
+import com.battlesnake.board.DistanceFields;
+import com.battlesnake.board.FreeTimes;
+import com.battlesnake.minimax.MoveOrdering;
+import com.battlesnake.minimax.TranspositionTable;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Everything a game needs on every turn that doesn't change between turns, allocated once
+ * when the game starts instead of on every /move.
+ *
+ * The board is changed in place, by init and by every search on it, so a request only uses
+ * the session while it holds its lock. The server usually waits for our answer before the
+ * next turn, but not when we overrun: then the old search can still be running on the board
+ * when the next turn comes in, and that turn gets a session of its own from the registry.
+ */
+public class GameSession {
+
+    private final String gameId;
+    private final int width;
+    private final int height;
+
+    private final BitBoard board;
+    private final DistanceFields distanceFields;
+    private final FreeTimes freeTimes;
+    private final TranspositionTable table;
+    private MoveOrdering ordering;
+
+    // the board as the last turn left it, trusted only when that turn ran to the end
+    private BoardSnapshot lastTurn;
+    private boolean turnFinished;
+
+    private volatile long lastUsed;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    GameSession(String gameId, int width, int height, TranspositionTable table) {
+        this.gameId = gameId;
+        this.table = table;
+        this.width = width;
+        this.height = height;
+        board = new BitBoard(width, height);
+        distanceFields = new DistanceFields(board.getGrid());
+        freeTimes = new FreeTimes(board.getGrid());
+        lastUsed = System.nanoTime();
+    }
+
+    public boolean fits(int width, int height) {
+        return this.width == width && this.height == height;
+    }
+
+    // killers and history carry over from the last turn, most of the tree is the same
+    public MoveOrdering getOrdering(int snakes) {
+        if (ordering == null) ordering = new MoveOrdering(snakes, board.getGrid().getCells());
+        return ordering;
+    }
+
+    // the last turn's snapshot, or null when the board can't be trusted to still match it
+    public BoardSnapshot beginTurn() {
+        BoardSnapshot last = turnFinished ? lastTurn : null;
+        turnFinished = false;
+        return last;
+    }
+
+    public void setLastTurn(BoardSnapshot lastTurn) {
+        this.lastTurn = lastTurn;
+    }
+
+    // every search has put the board back, so the next turn can start from it
+    public void finishTurn() {
+        turnFinished = true;
+    }
+
+    boolean tryLock() {
+        return lock.tryLock();
+    }
+
+    void unlock() {
+        if (lock.isHeldByCurrentThread()) lock.unlock();
+    }
+
+    void touch() {
+        lastUsed = System.nanoTime();
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public BitBoard getBoard() {
+        return board;
+    }
+
+    public DistanceFields getDistanceFields() {
+        return distanceFields;
+    }
+
+    public FreeTimes getFreeTimes() {
+        return freeTimes;
+    }
+
+    // the shared table, aged by this game's searches only
+    public TranspositionTable getTable() {
+        return table;
+    }
+}
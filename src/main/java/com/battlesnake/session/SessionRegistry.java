@@ -0,0 +1,92 @@
+package com.battlesnake.session;
+
+import com.battlesnake.minimax.TranspositionTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The sessions of the games in progress, keyed by game id.
+ *
+ * A session is made on /start and dropped on /end. Games that never send /end are dropped
+ * once they go unused for ttl-ms, and the least recently used game goes first when there
+ * are more than max-games, so memory stays bounded however many games come and go.
+ * A /move for a game we don't know, after a restart say, gets a new session on the spot.
+ */
+@Component
+public class SessionRegistry {
+
+    private final int maxGames;
+    private final long ttlNanos;
+    private final TranspositionTable table;
+
+    // in access order, the least recently used game first
+    private final LinkedHashMap<String, GameSession> sessions = new LinkedHashMap<String, GameSession>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, GameSession> eldest) {
+            return size() > maxGames;
+        }
+    };
+
+    public SessionRegistry(@Value("${snake.session.max-games:512}") int maxGames,
+                           @Value("${snake.session.ttl-ms:600000}") long ttlMillis,
+                           TranspositionTable table) {
+        this.table = table;
+        this.maxGames = Math.max(1, maxGames);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    public synchronized GameSession start(String gameId, int width, int height) {
+        evictExpired();
+        GameSession session = new GameSession(gameId, width, height, table.forGame());
+        if (gameId != null) sessions.put(gameId, session);
+        return session;
+    }
+
+    // the game's session, made again when the board size doesn't match the one we have
+    public synchronized GameSession get(String gameId, int width, int height) {
+        evictExpired();
+        GameSession session = gameId == null ? null : sessions.get(gameId);
+        if (session == null || !session.fits(width, height)) return start(gameId, width, height);
+        session.touch();
+        return session;
+    }
+
+    // the game's session for this request alone, released when the request is done with it.
+    // While an earlier request that overran still holds it, a fresh one that isn't kept,
+    // whose board is built from scratch
+    public GameSession acquire(String gameId, int width, int height) {
+        GameSession session = get(gameId, width, height);
+        if (session.tryLock()) return session;
+        System.out.println("Session busy, game " + gameId + " searches a board of its own");
+        session = new GameSession(gameId, width, height, table.forGame());
+        session.tryLock();
+        return session;
+    }
+
+    public void release(GameSession session) {
+        session.unlock();
+    }
+
+    public synchronized void end(String gameId) {
+        if (gameId != null) sessions.remove(gameId);
+    }
+
+    public synchronized int size() {
+        return sessions.size();
+    }
+
+    // the oldest sessions come first, so stop at the first one still in use
+    private void evictExpired() {
+        long now = System.nanoTime();
+        Iterator<GameSession> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().getLastUsed() < ttlNanos) break;
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.battlesnake.timing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Decides how much work a /move may do from how busy the server already is.
+ *
+ * A full search takes every search thread for the whole budget, so once shallow-at searches
+ * are running a new one is held to one thread and half the depth. Once safe-at requests are
+ * in the handler at the same time, a new one skips searching altogether and answers with a
+ * flood fill. Either way every request is answered inside its own budget instead of all of
+ * them queueing for the cores and timing out together.
+ */
+@Component
+public class AdmissionControl {
+
+    public enum Level {
+        FULL,
+        SHALLOW,
+        SAFE
+    }
+
+    private final int shallowAt;
+    private final int safeAt;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger searching = new AtomicInteger();
+
+    public AdmissionControl(@Value("${snake.admission.shallow-at:2}") int shallowAt,
+                            @Value("${snake.admission.safe-at:0}") int safeAt) {
+        this.shallowAt = Math.max(1, shallowAt);
+        this.safeAt = safeAt > 0 ? safeAt : 4 * Runtime.getRuntime().availableProcessors();
+    }
+
+    // every enter must be matched by an exit with the level it returned
+    public Level enter() {
+        if (inFlight.incrementAndGet() > safeAt) return Level.SAFE;
+        return searching.incrementAndGet() > shallowAt ? Level.SHALLOW : Level.FULL;
+    }
+
+    public void exit(Level level) {
+        if (level != Level.SAFE) searching.decrementAndGet();
+        inFlight.decrementAndGet();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getSearching() {
+        return searching.get();
+    }
+}
@@ -0,0 +1,51 @@
+package com.battlesnake.timing;
+
+public class Deadline {
+
+    private final long end;
+    private final Deadline parent;
+    private volatile boolean cancelled;
+
+    public Deadline(long endNanos) {
+        this(endNanos, null);
+    }
+
+    private Deadline(long endNanos, Deadline parent) {
+        this.end = endNanos;
+        this.parent = parent;
+    }
+
+    public static Deadline after(long startNanos, long millis) {
+        return new Deadline(startNanos + millis * 1_000_000L);
+    }
+
+    public static Deadline in(long millis) {
+        return after(System.nanoTime(), millis);
+    }
+
+    public boolean expired() {
+        return cancelled || System.nanoTime() - end >= 0 || (parent != null && parent.expired());
+    }
+
+    // a slice of the time left, which also ends when this deadline is cancelled
+    public Deadline within(long nanos) {
+        return new Deadline(Math.min(end, System.nanoTime() + nanos), this);
+    }
+
+    // ends the search early, everything polling this deadline stops at its next check
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public long getEndNanos() {
+        return end;
+    }
+
+    public long remainingNanos() {
+        return Math.max(0, end - System.nanoTime());
+    }
+
+    public long remainingMillis() {
+        return remainingNanos() / 1_000_000L;
+    }
+}
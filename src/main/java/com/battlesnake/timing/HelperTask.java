@@ -0,0 +1,33 @@
+package com.battlesnake.timing;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/*
+ * Work a request hands to the shared search pool to help it along.
+ *
+ * The pool is shared with every other game, so a helper can still be queued when the request
+ * is done with it. Waiting for a worker to pick it up could take longer than the request has
+ * left, so a helper that hasn't started by then never runs, and only started ones are joined.
+ * Whichever side claims the task first decides which of the two it is.
+ */
+public class HelperTask<T> {
+
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private final ForkJoinTask<T> task;
+
+    public HelperTask(ForkJoinPool pool, Supplier<T> work) {
+        task = pool.submit(() -> claimed.compareAndSet(false, true) ? work.get() : null);
+    }
+
+    // what the helper came up with, null when it hadn't started and now never will
+    public T finish() {
+        if (claimed.compareAndSet(false, true)) {
+            task.cancel(false);
+            return null;
+        }
+        return task.join();
+    }
+}
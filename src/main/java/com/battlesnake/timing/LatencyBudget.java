@@ -0,0 +1,48 @@
+package com.battlesnake.timing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+ * Works out how long a request may search for.
+ *
+ * The game's timeout covers the whole round trip, so the time spent outside the search
+ * (reading the body, building the board, writing the response) is measured on every
+ * request and taken off together with a fixed allowance for the network.
+ */
+@Component
+public class LatencyBudget {
+
+    // weight of the newest sample in the running overhead average
+    private static final double SMOOTHING = 0.1;
+
+    private final int defaultTimeoutMillis;
+    private final int networkMillis;
+    private final int minimumMillis;
+
+    private volatile double overheadMillis;
+
+    public LatencyBudget(@Value("${snake.search.default-timeout-ms:500}") int defaultTimeoutMillis,
+                         @Value("${snake.search.network-ms:60}") int networkMillis,
+                         @Value("${snake.search.minimum-ms:10}") int minimumMillis) {
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.networkMillis = networkMillis;
+        this.minimumMillis = minimumMillis;
+    }
+
+    public Deadline deadline(long startNanos, int timeoutMillis) {
+        int timeout = timeoutMillis > 0 ? timeoutMillis : defaultTimeoutMillis;
+        long budget = (long) (timeout - networkMillis - overheadMillis);
+        return Deadline.after(startNanos, Math.max(minimumMillis, budget));
+    }
+
+    // total is the time the server held the request, search the part of it spent searching
+    public void record(long totalNanos, long searchNanos) {
+        double sample = Math.max(0, totalNanos - searchNanos) / 1_000_000.0;
+        overheadMillis += SMOOTHING * (sample - overheadMillis);
+    }
+
+    public double getOverheadMillis() {
+        return overheadMillis;
+    }
+}
@@ -0,0 +1,33 @@
+package com.battlesnake.timing;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Counts the moves that didn't come from the strategy, because it ran out of time or had
+ * nothing to offer, so an overrun shows up in the log long before it shows up as a lost game.
+ */
+@Component
+public class MoveFallbacks {
+
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public void moved() {
+        moves.increment();
+    }
+
+    public void fellBack(String reason) {
+        fallbacks.increment();
+        System.out.println("Fallback move (" + reason + "): " + fallbacks.sum() + " of " + moves.sum() + " moves");
+    }
+
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+}
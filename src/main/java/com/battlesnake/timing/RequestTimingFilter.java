@@ -0,0 +1,40 @@
+package com.battlesnake.timing;
+
+import org.springframework.stereotype.Component;
+
+import javax.servlet.*;
+import java.io.IOException;
+
+// Measures how long the server holds each request and feeds the overhead to the budget
+@Component
+public class RequestTimingFilter implements Filter {
+
+    public static final String START_ATTRIBUTE = "com.battlesnake.timing.start";
+    public static final String SEARCH_ATTRIBUTE = "com.battlesnake.timing.search";
+
+    private final LatencyBudget budget;
+
+    public RequestTimingFilter(LatencyBudget budget) {
+        this.budget = budget;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        long start = System.nanoTime();
+        request.setAttribute(START_ATTRIBUTE, start);
+        chain.doFilter(request, response);
+
+        Object search = request.getAttribute(SEARCH_ATTRIBUTE);
+        if (search instanceof Long) {
+            budget.record(System.nanoTime() - start, (Long) search);
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
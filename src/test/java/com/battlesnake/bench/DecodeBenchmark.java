@@ -0,0 +1,113 @@
+package com.battlesnake.bench;
+
+import com.battlesnake.board.BoardGame;
+import com.battlesnake.data.MoveFrame;
+import com.battlesnake.data.MoveRequest;
+import com.battlesnake.data.MoveRequestDecoder;
+import com.battlesnake.data.Snake;
+import com.battlesnake.minimax.TranspositionTable;
+import com.battlesnake.session.GameSession;
+import com.battlesnake.session.SessionRegistry;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The /move body the way @RequestBody MoveRequest binds it, against MoveRequestDecoder.
+ * bind and decode only read the body; the load variants also stamp it onto a game session's
+ * board, which is where the bound objects end up being copied to anyway.
+ *
+ * Usage: mvn -B test-compile, then run main with the test classpath
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+
+    private static final int BODIES = 64;
+
+    @Param({"19"})
+    private int size;
+
+    @Param({"8"})
+    private int snakes;
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final MoveRequestDecoder decoder = new MoveRequestDecoder();
+    private final MoveFrame frame = new MoveFrame();
+    private byte[][] bodies;
+    private int next;
+    private GameSession session;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        bodies = new byte[BODIES][];
+        for (int i = 0; i < BODIES; i++) {
+            bodies[i] = RandomPositions.moveRequest(random, size, size, snakes).getBytes(StandardCharsets.UTF_8);
+        }
+        SessionRegistry sessions = new SessionRegistry(1, Long.MAX_VALUE, new TranspositionTable(1));
+        session = sessions.acquire("benchmark", size, size);
+    }
+
+    @Benchmark
+    public MoveRequest bind() throws IOException {
+        return mapper.readValue(body(), MoveRequest.class);
+    }
+
+    @Benchmark
+    public MoveFrame decode() throws IOException {
+        decoder.decode(body(), frame);
+        return frame;
+    }
+
+    @Benchmark
+    public BoardGame bindAndLoad() throws IOException {
+        MoveRequest request = mapper.readValue(body(), MoveRequest.class);
+        BoardGame board = request.getBoard();
+        Snake you = null;
+        for (Snake snake : board.getSnakes()) {
+            if (snake.getId().equals(request.getYou().getId())) you = snake;
+        }
+        board.init(you, session);
+        return board;
+    }
+
+    @Benchmark
+    public BoardGame decodeAndLoad() throws IOException {
+        decoder.decode(body(), frame);
+        BoardGame board = new BoardGame();
+        board.init(frame, session);
+        return board;
+    }
+
+    private byte[] body() {
+        return bodies[next++ & BODIES - 1];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DecodeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,69 @@
+package com.battlesnake.bench;
+
+import java.util.Random;
+
+// Builds move request bodies for made up positions, each snake a random walk over free cells
+public class RandomPositions {
+
+    private static final int[] DX = {0, 0, -1, 1};
+    private static final int[] DY = {1, -1, 0, 0};
+
+    public static String moveRequest(Random random, int width, int height, int snakeCount) {
+        boolean[] taken = new boolean[width * height];
+        StringBuilder snakes = new StringBuilder();
+        for (int s = 0; s < snakeCount; s++) {
+            if (s > 0) snakes.append(',');
+            snakes.append("{\"id\":\"snake-").append(s).append("\",\"name\":\"snake-").append(s)
+                    .append("\",\"health\":").append(40 + random.nextInt(60))
+                    .append(",\"body\":[").append(body(random, width, height, taken, 3 + random.nextInt(8)))
+                    .append("]}");
+        }
+
+        StringBuilder food = new StringBuilder();
+        int foodCount = 1 + random.nextInt(4);
+        for (int f = 0; f < foodCount; f++) {
+            int cell = freeCell(random, taken);
+            taken[cell] = true;
+            if (f > 0) food.append(',');
+            point(food, cell % width, cell / width);
+        }
+
+        return "{\"game_id\":\"benchmark\",\"turn\":0,\"you\":{\"id\":\"snake-0\"},\"board\":{"
+                + "\"width\":" + width + ",\"height\":" + height
+                + ",\"food\":[" + food + "],\"snakes\":[" + snakes + "]}}";
+    }
+
+    private static String body(Random random, int width, int height, boolean[] taken, int length) {
+        StringBuilder body = new StringBuilder();
+        int cell = freeCell(random, taken);
+        for (int i = 0; i < length; i++) {
+            taken[cell] = true;
+            if (i > 0) body.append(',');
+            point(body, cell % width, cell / width);
+
+            // walk on while there is room, a short snake is still a valid snake
+            int next = -1;
+            int start = random.nextInt(4);
+            for (int d = 0; d < 4 && next < 0; d++) {
+                int x = cell % width + DX[(start + d) & 3];
+                int y = cell / width + DY[(start + d) & 3];
+                if (x >= 0 && x < width && y >= 0 && y < height && !taken[y * width + x]) next = y * width + x;
+            }
+            if (next < 0) break;
+            cell = next;
+        }
+        return body.toString();
+    }
+
+    private static int freeCell(Random random, boolean[] taken) {
+        int cell;
+        do {
+            cell = random.nextInt(taken.length);
+        } while (taken[cell]);
+        return cell;
+    }
+
+    private static void point(StringBuilder out, int x, int y) {
+        out.append("{\"x\":").append(x).append(",\"y\":").append(y).append('}');
+    }
+}
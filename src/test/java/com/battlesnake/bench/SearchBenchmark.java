@@ -0,0 +1,162 @@
+package com.battlesnake.bench;
+
+import com.battlesnake.board.BoardGame;
+import com.battlesnake.data.MoveRequest;
+import com.battlesnake.data.Snake;
+import com.battlesnake.minimax.Minimax;
+import com.battlesnake.minimax.ParallelSearch;
+import com.battlesnake.minimax.TranspositionTable;
+import com.battlesnake.timing.Deadline;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Measures search nodes per second from 1 thread up to every core.
+ *
+ * Usage: SearchBenchmark [-millis 500] [-threads N] [-depth 64] [-ordering D] [move request .json files...]
+ * Without files it searches the positions recorded from self-play games under
+ * src/test/resources/positions, so runs are comparable.
+ * With -ordering it instead searches every position to depth D with and without move
+ * ordering and prints the nodes each needed.
+ */
+public class SearchBenchmark {
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private int millis = 500;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int depth = 64;
+    private int orderingDepth;
+    private List<String> positions = new ArrayList<>();
+
+    public static void main(String[] args) throws IOException {
+        SearchBenchmark benchmark = new SearchBenchmark();
+        benchmark.parse(args);
+        if (benchmark.orderingDepth > 0) benchmark.compareOrdering();
+        else benchmark.run();
+    }
+
+    private void parse(String[] args) throws IOException {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-millis":
+                    millis = Integer.parseInt(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-depth":
+                    depth = Integer.parseInt(args[++i]);
+                    break;
+                case "-ordering":
+                    orderingDepth = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    positions.add(new String(Files.readAllBytes(Paths.get(args[i])), "UTF-8"));
+            }
+        }
+        if (positions.isEmpty()) loadRecorded();
+    }
+
+    // position-1.json, position-2.json and so on, up to the first one missing
+    private void loadRecorded() {
+        for (int i = 1; ; i++) {
+            InputStream in = SearchBenchmark.class.getResourceAsStream("/positions/position-" + i + ".json");
+            if (in == null) return;
+            try (Scanner scanner = new Scanner(in, "UTF-8")) {
+                positions.add(scanner.useDelimiter("\\A").next());
+            }
+        }
+    }
+
+    private void run() throws IOException {
+        // one untimed pass so the JIT has compiled the search before anything is measured
+        measure(1);
+
+        System.out.println("threads, nodes/sec, speedup, average depth");
+        double single = 0;
+        for (int workers = 1; workers <= threads; workers++) {
+            double[] result = measure(workers);
+            if (workers == 1) single = result[0];
+            System.out.println(String.format("%d, %.0f, %.2f, %.1f", workers, result[0], result[0] / single, result[1]));
+        }
+    }
+
+    // nodes per second and average completed depth over every position
+    private double[] measure(int workers) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        TranspositionTable table = new TranspositionTable(64);
+        long nodes = 0;
+        long time = 0;
+        int depths = 0;
+        try {
+            for (String json : positions) {
+                MoveRequest request = mapper.readValue(json, MoveRequest.class);
+                BoardGame board = request.getBoard();
+                Snake you = findSnake(board, request.getYou().getId());
+                board.init(you);
+
+                Minimax minimax = new Minimax(board.getBoard(), you, board.getSnakes(), board.getFood(), table);
+                table.newSearch();
+                ParallelSearch search = new ParallelSearch(pool, workers, depth);
+                long start = System.nanoTime();
+                search.search(minimax, Deadline.in(millis));
+                time += System.nanoTime() - start;
+                nodes += search.getNodes();
+                depths += search.getCompletedDepth();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return new double[]{nodes / (time / 1e9), (double) depths / positions.size()};
+    }
+
+    private void compareOrdering() throws IOException {
+        System.out.println("position, nodes unordered, nodes ordered, reduction, first move cutoffs");
+        long unordered = 0;
+        long ordered = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            long without = fixedDepth(positions.get(i), false).getNodes();
+            Minimax search = fixedDepth(positions.get(i), true);
+            unordered += without;
+            ordered += search.getNodes();
+            System.out.println(String.format("%d, %d, %d, %.1f%%, %.1f%%", i, without, search.getNodes(),
+                    100.0 * (without - search.getNodes()) / Math.max(1, without), 100 * search.getOrdering().firstMoveCutoffRate()));
+        }
+        System.out.println(String.format("total, %d, %d, %.1f%%", unordered, ordered, 100.0 * (unordered - ordered) / Math.max(1, unordered)));
+    }
+
+    // iterative deepening to a fixed depth with a fresh table, so both runs start the same
+    private Minimax fixedDepth(String json, boolean ordering) throws IOException {
+        MoveRequest request = mapper.readValue(json, MoveRequest.class);
+        BoardGame board = request.getBoard();
+        Snake you = findSnake(board, request.getYou().getId());
+        board.init(you);
+
+        TranspositionTable table = new TranspositionTable(16);
+        Minimax minimax = new Minimax(board.getBoard(), you, board.getSnakes(), board.getFood(), table);
+        if (!ordering) minimax.setOrdering(null);
+        table.newSearch();
+        for (int depth = 1; depth <= orderingDepth; depth++) {
+            minimax.search(depth);
+        }
+        return minimax;
+    }
+
+    private Snake findSnake(BoardGame board, String id) {
+        for (Snake snake : board.getSnakes()) {
+            if (snake.getId().equals(id)) return snake;
+        }
+        return board.getSnakes().get(0);
+    }
+}
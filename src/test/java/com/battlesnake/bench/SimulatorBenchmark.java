@@ -0,0 +1,73 @@
+package com.battlesnake.bench;
+
+import com.battlesnake.board.BitBoard;
+import com.battlesnake.board.GameSimulator;
+import com.battlesnake.board.GameState;
+import com.battlesnake.board.Grid;
+import com.battlesnake.data.MoveRequest;
+import com.battlesnake.data.Snake;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Random;
+
+/*
+ * Measures GameSimulator turns per second: random games played out and undone again.
+ *
+ * Usage: SimulatorBenchmark [seconds] [snakes] [board size]
+ */
+public class SimulatorBenchmark {
+
+    private static final int TURNS = 50;
+
+    public static void main(String[] args) throws IOException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int snakes = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 11;
+
+        ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        Random random = new Random(42);
+        MoveRequest request = mapper.readValue(RandomPositions.moveRequest(random, size, size, snakes), MoveRequest.class);
+        Snake you = request.getBoard().getSnakes().get(0);
+        request.getBoard().init(you);
+
+        BitBoard board = request.getBoard().getBoard();
+        GameState state = new GameState(board);
+        state.load(request.getBoard().getSnakes(), you);
+        GameSimulator simulator = new GameSimulator(state);
+        int[] turn = new int[state.getSnakeCount()];
+
+        for (int round = 0; round <= seconds; round++) {
+            long end = System.nanoTime() + 1_000_000_000L;
+            long turns = 0;
+            while (System.nanoTime() < end) {
+                int played = 0;
+                while (played < TURNS && state.isAlive(state.getMe())) {
+                    for (int snake = 0; snake < turn.length; snake++) {
+                        turn[snake] = safeMove(state, snake, random);
+                    }
+                    simulator.step(turn);
+                    played++;
+                }
+                for (int i = 0; i < played; i++) {
+                    simulator.undo();
+                }
+                turns += played;
+            }
+            // the first second only warms up the JIT
+            if (round > 0) System.out.println("turns/sec: " + turns);
+        }
+    }
+
+    private static int safeMove(GameState state, int snake, Random random) {
+        if (!state.isAlive(snake)) return 0;
+        int start = random.nextInt(Grid.DIRECTIONS);
+        for (int i = 0; i < Grid.DIRECTIONS; i++) {
+            int direction = (start + i) & 3;
+            int cell = state.target(snake, direction);
+            if (cell != Grid.NONE && !state.getBoard().isFilled(cell) && !state.getBoard().isHead(cell)) return direction;
+        }
+        return start;
+    }
+}
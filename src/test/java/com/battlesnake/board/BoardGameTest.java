@@ -0,0 +1,134 @@
+package com.battlesnake.board;
+
+import com.battlesnake.bench.RandomPositions;
+import com.battlesnake.data.MoveFrame;
+import com.battlesnake.data.MoveRequest;
+import com.battlesnake.data.Snake;
+import com.battlesnake.math.Point;
+import com.battlesnake.minimax.TranspositionTable;
+import com.battlesnake.session.GameSession;
+import com.battlesnake.session.SessionRegistry;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class BoardGameTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final int[] DX = {0, 0, -1, 1};
+    private static final int[] DY = {1, -1, 0, 0};
+
+    // turn after turn the session's board only stamps what changed, and ends up bit for bit
+    // where a board set up from scratch does: eating, doubled up tails and heads next to tails
+    @Test
+    public void updatedBoardMatchesFreshBoard() throws IOException {
+        Random random = new Random(15);
+        for (int game = 0; game < 300; game++) {
+            int width = 7 + game % 5;
+            int height = 7 + game % 3;
+            String body = RandomPositions.moveRequest(random, width, height, 2 + game % 4);
+            BoardGame start = MAPPER.readValue(body, MoveRequest.class).getBoard();
+            List<Snake> snakes = start.getSnakes();
+            List<Point> food = new ArrayList<>(start.getFood());
+            // a game's first turns, every body stacked on its head
+            if (game % 3 == 0) {
+                for (Snake snake : snakes) {
+                    List<Point> stacked = new ArrayList<>();
+                    for (int i = 0; i < 3; i++) stacked.add(snake.getHead());
+                    snake.setBody(stacked);
+                }
+            }
+
+            SessionRegistry sessions = new SessionRegistry(1, Long.MAX_VALUE, new TranspositionTable(1));
+            GameSession session = sessions.acquire("game-" + game, width, height);
+            for (int turn = 0; turn < 40 && snakes != null; turn++) {
+                BoardGame updated = new BoardGame();
+                updated.init(MoveFrame.of(width, height, snakes, food, snakes.get(0)), session);
+                session.finishTurn();
+
+                BoardGame fresh = new BoardGame();
+                fresh.setWidth(width);
+                fresh.setHeight(height);
+                fresh.setSnakes(snakes);
+                fresh.setFood(food);
+                fresh.init(snakes.get(0));
+
+                for (int cell = 0; cell < width * height; cell++) {
+                    assertEquals("game " + game + " turn " + turn + " cell " + cell,
+                            fresh.getBoard().cellState(cell), updated.getBoard().cellState(cell));
+                }
+                snakes = nextTurn(random, width, height, snakes, food);
+            }
+            sessions.release(session);
+        }
+    }
+
+    // every snake one step on into a cell that is free by then, null once one of them can't
+    private static List<Snake> nextTurn(Random random, int width, int height, List<Snake> snakes, List<Point> food) {
+        Set<Integer> blocked = new HashSet<>();
+        for (Snake snake : snakes) {
+            List<Point> body = snake.getBody();
+            int end = snake.justAte() ? body.size() : body.size() - 1;
+            for (int i = 0; i < end; i++) blocked.add(cell(body.get(i), width));
+        }
+
+        List<Snake> next = new ArrayList<>();
+        for (Snake snake : snakes) {
+            Point head = snake.getHead();
+            Point to = null;
+            int first = random.nextInt(4);
+            for (int d = 0; d < 4 && to == null; d++) {
+                int x = head.getX() + DX[(first + d) & 3];
+                int y = head.getY() + DY[(first + d) & 3];
+                if (x >= 0 && x < width && y >= 0 && y < height && !blocked.contains(y * width + x)) {
+                    to = new Point(x, y);
+                }
+            }
+            if (to == null) return null;
+            blocked.add(cell(to, width));
+
+            boolean eats = removeFood(food, to);
+            List<Point> body = new ArrayList<>(snake.getBody());
+            body.add(0, to);
+            body.remove(body.size() - 1);
+            // the server's way of growing, see SnakeBody.eat
+            if (eats) body.add(body.get(body.size() - 1));
+            Snake moved = new Snake();
+            moved.setId(snake.getId());
+            moved.setHealth(eats ? SnakeBody.MAX_HEALTH : Math.max(1, snake.getHealth() - 1));
+            moved.setBody(body);
+            next.add(moved);
+        }
+
+        if (random.nextInt(3) == 0) {
+            int cell = random.nextInt(width * height);
+            if (!blocked.contains(cell)) food.add(new Point(cell % width, cell / width));
+        }
+        return next;
+    }
+
+    private static boolean removeFood(List<Point> food, Point at) {
+        for (int i = 0; i < food.size(); i++) {
+            if (food.get(i).equals(at)) {
+                food.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int cell(Point point, int width) {
+        return point.getY() * width + point.getX();
+    }
+}
@@ -0,0 +1,66 @@
+package com.battlesnake.board;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class DistanceFieldsTest {
+
+    // a field kept from turn to turn and repaired has to read the same as one searched fresh
+    @Test
+    public void repairMatchesFreshSearch() {
+        Random random = new Random(24);
+        for (int game = 0; game < 200; game++) {
+            int width = 7 + random.nextInt(13);
+            int height = 7 + random.nextInt(13);
+            BitBoard board = new BitBoard(width, height);
+            Grid grid = board.getGrid();
+            int cells = grid.getCells();
+            for (int cell = 0; cell < cells; cell++) {
+                if (random.nextInt(4) == 0) board.setWall(cell);
+            }
+
+            DistanceFields kept = new DistanceFields(grid);
+            int[] sources = new int[4];
+            int count = 0;
+            for (int turn = 0; turn < 60; turn++) {
+                // a few cells change most turns, now and then a lot of them
+                int changes = random.nextInt(10) == 0 ? cells / 2 : 1 + random.nextInt(6);
+                for (int i = 0; i < changes; i++) {
+                    int cell = random.nextInt(cells);
+                    switch (random.nextInt(4)) {
+                        case 0:
+                            board.setWall(cell);
+                            break;
+                        case 1:
+                            board.setTail(cell);
+                            break;
+                        case 2:
+                            board.setDanger(cell);
+                            break;
+                        default:
+                            board.clearCell(cell);
+                    }
+                }
+                // goals come and go, some of them on cells that can't be entered
+                if (count == 0 || random.nextBoolean()) {
+                    count = 1 + random.nextInt(sources.length);
+                    for (int i = 0; i < count; i++) {
+                        sources[i] = random.nextInt(cells);
+                    }
+                }
+
+                kept.invalidate();
+                kept.compute(DistanceFields.Goal.FOOD, board, sources, count);
+                DistanceFields fresh = new DistanceFields(grid);
+                fresh.compute(DistanceFields.Goal.FOOD, board, sources, count);
+                for (int cell = 0; cell < cells; cell++) {
+                    assertEquals("game " + game + " turn " + turn + " cell " + cell,
+                            fresh.distance(DistanceFields.Goal.FOOD, cell), kept.distance(DistanceFields.Goal.FOOD, cell));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.battlesnake.board;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class GameSimulatorTest {
+
+    // whole turns with every snake on a random move, deaths included, and all of them undone
+    @Test
+    public void incrementalHashMatchesFullHash() throws IOException {
+        Random random = new Random(11);
+        for (int game = 0; game < 500; game++) {
+            GameState state = GameStateTest.load(random, 9 + game % 4, 2 + game % 3);
+            GameSimulator simulator = new GameSimulator(state);
+            Zobrist zobrist = Zobrist.of(state.getGrid());
+            int[] turn = new int[state.getSnakeCount()];
+            long[] hashes = new long[30];
+            int turns = 0;
+            for (int t = 0; t < hashes.length; t++) {
+                for (int snake = 0; snake < turn.length; snake++) {
+                    turn[snake] = random.nextInt(Grid.DIRECTIONS);
+                }
+                hashes[turns++] = state.getHash();
+                simulator.step(turn);
+                assertEquals("game " + game + " turn " + t, GameStateTest.fullHash(zobrist, state, turns), state.getHash());
+                if (random.nextInt(4) == 0) {
+                    simulator.undo();
+                    assertEquals(hashes[--turns], state.getHash());
+                }
+            }
+            while (turns > 0) {
+                simulator.undo();
+                assertEquals(hashes[--turns], state.getHash());
+                assertEquals(GameStateTest.fullHash(zobrist, state, turns), state.getHash());
+            }
+        }
+    }
+
+    // the doubled up tail is still there when the head gets to it, so the snake dies on it
+    @Test
+    public void moveIntoStackedTail() throws IOException {
+        GameState state = GameStateTest.load(GameStateTest.STACKED_TAIL);
+        GameSimulator simulator = new GameSimulator(state);
+        Zobrist zobrist = Zobrist.of(state.getGrid());
+        int tail = state.getSnake(0).tail();
+        int[] turn = new int[state.getSnakeCount()];
+        for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+            if (state.target(0, direction) == tail) turn[0] = direction;
+        }
+        turn[1] = Grid.DIRECTIONS - 1;
+        long before = state.getHash();
+        simulator.step(turn);
+        assertFalse(state.isAlive(0));
+        assertEquals(GameStateTest.fullHash(zobrist, state, 1), state.getHash());
+        simulator.undo();
+        assertEquals(before, state.getHash());
+    }
+}
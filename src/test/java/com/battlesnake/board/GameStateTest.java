@@ -0,0 +1,144 @@
+package com.battlesnake.board;
+
+import com.battlesnake.bench.RandomPositions;
+import com.battlesnake.data.Move;
+import com.battlesnake.data.MoveRequest;
+import com.battlesnake.data.Snake;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GameStateTest {
+
+    // snake a just ate and its head is next to its doubled up tail
+    static final String STACKED_TAIL = "{\"width\":19,\"height\":19,\"food\":[],\"snakes\":[{\"id\":\"a\",\"health\":100,"
+            + "\"body\":[{\"x\":14,\"y\":2},{\"x\":13,\"y\":2},{\"x\":13,\"y\":3},{\"x\":14,\"y\":3},{\"x\":14,\"y\":3}]},"
+            + "{\"id\":\"b\",\"health\":90,\"body\":[{\"x\":2,\"y\":2},{\"x\":2,\"y\":3},{\"x\":2,\"y\":4}]}]}";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    // random lines of play, eating and running into bodies included, and all the way back
+    @Test
+    public void incrementalHashMatchesFullHash() throws IOException {
+        Random random = new Random(4);
+        for (int game = 0; game < 500; game++) {
+            GameState state = load(random, 9 + game % 4, 2 + game % 3);
+            Zobrist zobrist = Zobrist.of(state.getGrid());
+            long[] hashes = new long[40];
+            int plies = 0;
+            for (int ply = 0; ply < hashes.length; ply++) {
+                int snake = ply % state.getSnakeCount();
+                int direction = random.nextInt(Grid.DIRECTIONS);
+                if (state.target(snake, direction) == Grid.NONE) continue;
+                hashes[plies++] = state.getHash();
+                state.makeMove(snake, direction);
+                assertEquals("game " + game + " ply " + ply, fullHash(zobrist, state, plies), state.getHash());
+                // now and then take some of it back and play on from there
+                if (random.nextInt(4) == 0) {
+                    state.unmakeMove();
+                    assertEquals(hashes[--plies], state.getHash());
+                }
+            }
+            while (plies > 0) {
+                state.unmakeMove();
+                assertEquals(hashes[--plies], state.getHash());
+                assertEquals(fullHash(zobrist, state, plies), state.getHash());
+            }
+        }
+    }
+
+    // a snake that just ate still has its tail under it next turn, so moving onto it keeps both
+    @Test
+    public void moveIntoStackedTail() throws IOException {
+        GameState state = load(STACKED_TAIL);
+        Zobrist zobrist = Zobrist.of(state.getGrid());
+        int tail = state.getSnake(0).tail();
+        for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+            if (state.target(0, direction) != tail) continue;
+            long before = state.getHash();
+            state.makeMove(0, direction);
+            assertEquals(fullHash(zobrist, state, 1), state.getHash());
+            state.unmakeMove();
+            assertEquals(before, state.getHash());
+        }
+    }
+
+    // the same bodies from the other snake's side are scored the other way round
+    @Test
+    public void hashSaysWhichSnakeIsUs() throws IOException {
+        GameState ours = load(STACKED_TAIL);
+        GameState theirs = load(STACKED_TAIL.replace("{\"width\"", "{\"you\":{\"id\":\"b\"},\"board\":{\"width\"") + "}");
+        assertEquals(0, ours.getMe());
+        assertEquals(1, theirs.getMe());
+        assertNotEquals(ours.getHash(), theirs.getHash());
+    }
+
+    // on the first turns the tail is still doubled up on the neck, so it isn't a way out
+    @Test
+    public void startingTailStaysPut() throws IOException {
+        GameState state = load("{\"width\":11,\"height\":11,\"food\":[],\"snakes\":[{\"id\":\"a\",\"health\":100,"
+                + "\"body\":[{\"x\":1,\"y\":1},{\"x\":1,\"y\":1},{\"x\":1,\"y\":1}]},{\"id\":\"b\",\"health\":99,"
+                + "\"body\":[{\"x\":9,\"y\":8},{\"x\":9,\"y\":9},{\"x\":9,\"y\":9}]}]}");
+        Grid grid = state.getGrid();
+        assertTrue(state.getBoard().isFilled(grid.index(9, 9)));
+        int start = state.getSnake(0).head();
+        state.makeMove(0, Move.UP.ordinal());
+        assertTrue(state.getBoard().isFilled(start));
+        // one more move and b's tail is on its own again
+        state.makeMove(1, Move.LEFT.ordinal());
+        assertFalse(state.getBoard().isFilled(grid.index(9, 9)));
+    }
+
+    // the cells next to a longer enemy's head follow it down the line and come back with it
+    @Test
+    public void dangerFollowsLongerHead() throws IOException {
+        GameState state = load(STACKED_TAIL.replace("{\"width\"", "{\"you\":{\"id\":\"b\"},\"board\":{\"width\"") + "}");
+        BitBoard board = state.getBoard();
+        Grid grid = state.getGrid();
+        int[] before = new int[grid.getCells()];
+        for (int cell = 0; cell < before.length; cell++) before[cell] = board.cellState(cell);
+        int oldHead = state.getSnake(0).head();
+        for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+            int next = state.target(0, direction);
+            if (next == Grid.NONE || board.isOccupied(next)) continue;
+            state.makeMove(0, direction);
+            for (int side = 0; side < Grid.DIRECTIONS; side++) {
+                int cell = grid.neighbour(next, side);
+                if (cell != Grid.NONE && !board.isOccupied(cell)) assertTrue(board.isDanger(cell));
+                cell = grid.neighbour(oldHead, side);
+                if (cell != Grid.NONE && grid.distance(cell, next) > 1) assertFalse(board.isDanger(cell));
+            }
+            state.unmakeMove();
+            for (int cell = 0; cell < before.length; cell++) assertEquals(before[cell], board.cellState(cell));
+        }
+    }
+
+    // the full hash leaves out whose move it is, the incremental one flips it every ply
+    static long fullHash(Zobrist zobrist, GameState state, int plies) {
+        return zobrist.hash(state) ^ (plies % 2 == 0 ? 0 : zobrist.sideToMove());
+    }
+
+    static GameState load(Random random, int size, int snakes) throws IOException {
+        return load(RandomPositions.moveRequest(random, size, size, snakes));
+    }
+
+    static GameState load(String board) throws IOException {
+        if (!board.contains("\"you\"")) board = "{\"you\":{\"id\":\"a\"},\"board\":" + board + "}";
+        MoveRequest request = MAPPER.readValue(board, MoveRequest.class);
+        Snake you = request.getBoard().getSnakes().stream()
+                .filter(snake -> snake.getId().equals(request.getYou().getId())).findFirst().orElse(null);
+        request.getBoard().init(you);
+        GameState state = new GameState(request.getBoard().getBoard());
+        state.load(request.getBoard().getSnakes(), you);
+        return state;
+    }
+}
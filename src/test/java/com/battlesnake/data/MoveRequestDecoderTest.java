@@ -0,0 +1,79 @@
+package com.battlesnake.data;
+
+import com.battlesnake.bench.RandomPositions;
+import com.battlesnake.math.Point;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MoveRequestDecoderTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    // the frame holds what data binding reads from the same body, one frame for all of them
+    @Test
+    public void decodesWhatBindingReads() throws IOException {
+        Random random = new Random(16);
+        MoveRequestDecoder decoder = new MoveRequestDecoder();
+        MoveFrame frame = new MoveFrame();
+        for (int i = 0; i < 200; i++) {
+            int size = 7 + random.nextInt(13);
+            String body = RandomPositions.moveRequest(random, size, size + i % 3, 1 + random.nextInt(8));
+            decoder.decode(body.getBytes(StandardCharsets.UTF_8), frame);
+            MoveRequest request = MAPPER.readValue(body, MoveRequest.class);
+
+            assertEquals(request.getGameId(), frame.getGameId());
+            assertEquals(request.getBoard().getWidth(), frame.getWidth());
+            assertEquals(request.getBoard().getHeight(), frame.getHeight());
+            assertSamePoints(request.getBoard().getFood(), frame.foodPoints());
+            List<Snake> snakes = request.getBoard().getSnakes();
+            assertEquals(snakes.size(), frame.getSnakeCount());
+            for (int snake = 0; snake < snakes.size(); snake++) {
+                Snake bound = snakes.get(snake);
+                assertEquals(bound.getId(), frame.getId(snake));
+                assertEquals(bound.getHealth(), frame.getHealth(snake));
+                assertSamePoints(bound.getBody(), frame.snakes().get(snake).getBody());
+                assertEquals(bound.length(), frame.length(snake));
+                for (int segment = 0; segment < bound.length(); segment++) {
+                    Point point = bound.getBody().get(segment);
+                    assertEquals(point.getY() * frame.getWidth() + point.getX(), frame.cell(snake, segment));
+                }
+                if (bound.getId().equals(request.getYou().getId())) assertEquals(snake, frame.getYou());
+            }
+        }
+    }
+
+    private static void assertSamePoints(List<Point> expected, List<Point> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue(expected.get(i).equals(actual.get(i)));
+        }
+    }
+
+    // the board's fields in any order, and game_id over the game's own id
+    @Test
+    public void fieldsInAnyOrder() throws IOException {
+        String body = "{\"board\":{\"snakes\":[{\"body\":[{\"y\":1,\"x\":2},{\"x\":2,\"y\":2}],\"health\":90,"
+                + "\"id\":\"b\",\"extra\":[1,{\"x\":0}]}],\"food\":[{\"x\":3,\"y\":4}],\"height\":5,\"width\":6},"
+                + "\"you\":{\"body\":[],\"id\":\"b\"},\"game_id\":\"g\",\"game\":{\"id\":\"other\",\"timeout\":300}}";
+        MoveFrame frame = new MoveFrame();
+        new MoveRequestDecoder().decode(body.getBytes(StandardCharsets.UTF_8), frame);
+        assertEquals("g", frame.getGameId());
+        assertEquals(300, frame.getTimeout());
+        assertEquals(0, frame.getYou());
+        assertEquals(1, frame.getSnakeCount());
+        assertEquals(2, frame.length(0));
+        assertEquals(1 * 6 + 2, frame.head(0));
+        assertEquals(2 * 6 + 2, frame.tail(0));
+        assertEquals(4 * 6 + 3, frame.food(0));
+    }
+}
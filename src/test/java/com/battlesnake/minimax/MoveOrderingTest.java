@@ -0,0 +1,46 @@
+package com.battlesnake.minimax;
+
+import com.battlesnake.bench.RandomPositions;
+import com.battlesnake.board.BoardGame;
+import com.battlesnake.data.MoveRequest;
+import com.battlesnake.data.MoveValue;
+import com.battlesnake.data.Snake;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class MoveOrderingTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    // killers and history from the shallower iterations only change which cutoffs come first,
+    // every depth comes to the value a search in board order comes to
+    @Test
+    public void orderingKeepsTheValue() throws IOException {
+        Random random = new Random(12);
+        for (int position = 0; position < 60; position++) {
+            int size = 7 + position % 3;
+            MoveRequest request = MAPPER.readValue(RandomPositions.moveRequest(random, size, size, 2 + position % 2),
+                    MoveRequest.class);
+            BoardGame board = request.getBoard();
+            Snake you = board.getSnakes().get(0);
+            board.init(you);
+
+            Minimax ordered = new Minimax(board.getBoard(), you, board.getSnakes(), board.getFood());
+            Minimax unordered = new Minimax(board.getBoard(), you, board.getSnakes(), board.getFood());
+            unordered.setOrdering(null);
+            for (int depth = 1; depth <= 5; depth++) {
+                MoveValue expected = unordered.search(depth);
+                MoveValue actual = ordered.search(depth);
+                if (expected == null) break; // nobody to search against
+                assertEquals("position " + position + " depth " + depth, expected.returnValue, actual.returnValue, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.battlesnake.minimax;
+
+import com.battlesnake.bench.RandomPositions;
+import com.battlesnake.board.GameState;
+import com.battlesnake.board.Grid;
+import com.battlesnake.board.Territory;
+import com.battlesnake.data.MoveRequest;
+import com.battlesnake.data.MoveValue;
+import com.battlesnake.data.Snake;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class MultiSnakeSearchTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    // alpha-beta on the paranoid tree comes to what looking at every line comes to
+    @Test
+    public void paranoidMatchesFullSearch() throws IOException {
+        Random random = new Random(8);
+        for (int position = 0; position < 150; position++) {
+            GameState state = load(random, 6 + position % 3, 2 + position % 3);
+            int depth = 2 + position % 4;
+            MoveValue pruned = new MultiSnakeSearch(state, MultiSnakeSearch.Mode.PARANOID).search(depth);
+            if (pruned == null) continue; // boxed in, there is no move to value
+            FullSearch full = new FullSearch(state);
+            assertEquals("position " + position, full.paranoid(0, depth, state.getMe()), pruned.returnValue, 0);
+        }
+    }
+
+    // shallow pruning only skips what no snake above would have picked
+    @Test
+    public void maxNMatchesFullSearch() throws IOException {
+        Random random = new Random(9);
+        for (int position = 0; position < 150; position++) {
+            GameState state = load(random, 6 + position % 3, 2 + position % 3);
+            int depth = 2 + position % 4;
+            MoveValue pruned = new MultiSnakeSearch(state, MultiSnakeSearch.Mode.MAX_N).search(depth);
+            if (pruned == null) continue; // boxed in, there is no move to value
+            FullSearch full = new FullSearch(state);
+            assertEquals("position " + position, full.maxN(0, depth, state.getMe())[state.getMe()], pruned.returnValue, 0);
+        }
+    }
+
+    static GameState load(Random random, int size, int snakes) throws IOException {
+        MoveRequest request = MAPPER.readValue(RandomPositions.moveRequest(random, size, size, snakes), MoveRequest.class);
+        Snake you = request.getBoard().getSnakes().get(0);
+        request.getBoard().init(you);
+        GameState state = new GameState(request.getBoard().getBoard());
+        state.load(request.getBoard().getSnakes(), you);
+        return state;
+    }
+
+    // the same trees as MultiSnakeSearch, every move of every snake and nothing cut off
+    private static class FullSearch {
+
+        private final GameState state;
+        private final Territory territory;
+        private final boolean[] dead;
+        private final int me;
+        private final int snakeCount;
+
+        FullSearch(GameState state) {
+            this.state = state;
+            territory = new Territory(state.getGrid());
+            me = state.getMe();
+            snakeCount = state.getSnakeCount();
+            dead = new boolean[snakeCount];
+        }
+
+        double paranoid(int depth, int maxDepth, int snake) {
+            if (depth == maxDepth || alive() <= 1) {
+                int[] scores = territory();
+                return dead[me] ? -1 : scores[me];
+            }
+            int next = nextAlive(snake);
+            double best = snake == me ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            boolean moved = false;
+            for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+                if (!legal(snake, direction)) continue;
+                moved = true;
+                state.makeMove(snake, direction);
+                double value = paranoid(depth + 1, maxDepth, next);
+                state.unmakeMove();
+                best = snake == me ? Math.max(best, value) : Math.min(best, value);
+            }
+            if (moved) return best;
+            if (snake == me) return -1;
+            dead[snake] = true;
+            double value = paranoid(depth + 1, maxDepth, nextAlive(snake));
+            dead[snake] = false;
+            return value;
+        }
+
+        int[] maxN(int depth, int maxDepth, int snake) {
+            if (depth == maxDepth || alive() <= 1) return territory();
+            int next = nextAlive(snake);
+            int[] best = null;
+            for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+                if (!legal(snake, direction)) continue;
+                state.makeMove(snake, direction);
+                int[] child = maxN(depth + 1, maxDepth, next);
+                state.unmakeMove();
+                if (best == null || child[snake] > best[snake]) best = child;
+            }
+            if (best != null) return best;
+            dead[snake] = true;
+            best = maxN(depth + 1, maxDepth, nextAlive(snake));
+            dead[snake] = false;
+            return best;
+        }
+
+        private boolean legal(int snake, int direction) {
+            int cell = state.target(snake, direction);
+            return cell != Grid.NONE && !state.getBoard().isFilled(cell) && !state.getBoard().isHead(cell);
+        }
+
+        private int nextAlive(int snake) {
+            for (int i = 1; i <= snakeCount; i++) {
+                if (!dead[(snake + i) % snakeCount]) return (snake + i) % snakeCount;
+            }
+            return snake;
+        }
+
+        private int alive() {
+            int alive = 0;
+            for (boolean gone : dead) {
+                if (!gone) alive++;
+            }
+            return alive;
+        }
+
+        private int[] territory() {
+            int[] scores = new int[snakeCount];
+            territory.compute(state, dead, scores);
+            return scores;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.battlesnake.minimax;
+
+import com.battlesnake.board.BitBoard;
+import com.battlesnake.board.GameSimulator;
+import com.battlesnake.board.GameState;
+import com.battlesnake.board.Grid;
+import com.battlesnake.board.Territory;
+import com.battlesnake.data.MoveValue;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SimultaneousSearchTest {
+
+    // cutting rows short, pruning across turns and dropping our moves into walls and bodies all
+    // come to the max-min of the full matrix: every move of ours against every joint move of theirs
+    @Test
+    public void matchesFullMatrix() throws IOException {
+        Random random = new Random(9);
+        for (int position = 0; position < 150; position++) {
+            GameState state = MultiSnakeSearchTest.load(random, 6 + position % 3, 2 + position % 3);
+            int depth = 1 + position % 3;
+            MoveValue pruned = new SimultaneousSearch(state).search(depth);
+            FullMatrix full = new FullMatrix(state);
+            assertEquals("position " + position, full.turn(0, depth), pruned.returnValue, 0);
+        }
+    }
+
+    // SimultaneousSearch without its pruning: the same opponents get a column, the rest keep to
+    // their first safe move, and every column is played out. In a duel an opponent may run into
+    // a wall too, with more snakes about it only plays the moves it survives, as the search does
+    private static class FullMatrix {
+
+        private final GameState state;
+        private final BitBoard board;
+        private final GameSimulator simulator;
+        private final Territory territory;
+        private final int me;
+        private final int snakeCount;
+
+        FullMatrix(GameState state) {
+            this.state = state;
+            board = state.getBoard();
+            simulator = new GameSimulator(state);
+            territory = new Territory(state.getGrid());
+            me = state.getMe();
+            snakeCount = state.getSnakeCount();
+        }
+
+        double turn(int depth, int maxDepth) {
+            if (!state.isAlive(me)) return -1;
+            int[] opponents = nearestOpponents();
+            if (depth == maxDepth || opponents.length == 0) return evaluate();
+
+            int[] turn = new int[snakeCount];
+            for (int snake = 0; snake < snakeCount; snake++) {
+                if (state.isAlive(snake)) turn[snake] = firstSafeMove(snake);
+            }
+            int columns = 1 << 2 * opponents.length;
+            double best = Double.NEGATIVE_INFINITY;
+            for (int row = 0; row < Grid.DIRECTIONS; row++) {
+                turn[me] = row;
+                double rowValue = Double.POSITIVE_INFINITY;
+                for (int column = 0; column < columns; column++) {
+                    if (!setColumn(column, opponents, turn)) continue;
+                    simulator.step(turn);
+                    rowValue = Math.min(rowValue, turn(depth + 1, maxDepth));
+                    simulator.undo();
+                }
+                best = Math.max(best, rowValue);
+            }
+            return best;
+        }
+
+        // false when the column has an opponent throw its game away with others still about
+        private boolean setColumn(int column, int[] opponents, int[] turn) {
+            for (int i = 0; i < opponents.length; i++) {
+                int direction = column >> 2 * i & 3;
+                if (snakeCount > 2 && direction != firstSafeMove(opponents[i]) && !safe(opponents[i], direction)) {
+                    return false;
+                }
+                turn[opponents[i]] = direction;
+            }
+            return true;
+        }
+
+        private boolean safe(int snake, int direction) {
+            int cell = state.target(snake, direction);
+            return cell != Grid.NONE && !board.isFilled(cell) && !board.isHead(cell);
+        }
+
+        // up when there is none, to die on
+        private int firstSafeMove(int snake) {
+            for (int direction = 0; direction < Grid.DIRECTIONS; direction++) {
+                if (safe(snake, direction)) return direction;
+            }
+            return 0;
+        }
+
+        private int[] nearestOpponents() {
+            int head = state.getSnake(me).head();
+            int[] nearest = new int[snakeCount];
+            int found = 0;
+            boolean[] chosen = new boolean[snakeCount];
+            while (found < 3) {
+                int next = Grid.NONE;
+                for (int snake = 0; snake < snakeCount; snake++) {
+                    if (snake == me || !state.isAlive(snake) || chosen[snake]) continue;
+                    if (next == Grid.NONE || distance(head, snake) < distance(head, next)) next = snake;
+                }
+                if (next == Grid.NONE) break;
+                chosen[next] = true;
+                nearest[found++] = next;
+            }
+            int[] opponents = new int[found];
+            System.arraycopy(nearest, 0, opponents, 0, found);
+            return opponents;
+        }
+
+        private int distance(int head, int snake) {
+            return state.getGrid().distance(head, state.getSnake(snake).head());
+        }
+
+        private double evaluate() {
+            for (int snake = 0; snake < snakeCount; snake++) {
+                if (snake != me && state.isAlive(snake)) {
+                    int[] scores = new int[snakeCount];
+                    territory.compute(state, null, scores);
+                    return scores[me];
+                }
+            }
+            return state.getGrid().getCells() + 1;
+        }
+    }
+}
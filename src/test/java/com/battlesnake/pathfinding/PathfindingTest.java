@@ -0,0 +1,92 @@
+package com.battlesnake.pathfinding;
+
+import com.battlesnake.bench.RandomPositions;
+import com.battlesnake.board.BitBoard;
+import com.battlesnake.board.Grid;
+import com.battlesnake.data.Move;
+import com.battlesnake.data.MoveRequest;
+import com.battlesnake.data.Snake;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class PathfindingTest {
+
+    private static final int KINDS = 4;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    // one pass to every kind of goal finds what a route to each of them on its own would
+    @Test
+    public void routesMatchRoute() throws IOException {
+        Random random = new Random(23);
+        Pathfinding pathfinding = new Pathfinding();
+        for (int position = 0; position < 1000; position++) {
+            int size = 9 + position % 11;
+            MoveRequest request = MAPPER.readValue(RandomPositions.moveRequest(random, size, size, 2 + position % 4), MoveRequest.class);
+            Snake you = request.getBoard().getSnakes().get(0);
+            request.getBoard().init(you);
+            BitBoard board = request.getBoard().getBoard();
+            Grid grid = board.getGrid();
+            int start = grid.index(you.getHead());
+            int[] costs = new int[grid.getCells()];
+            WeightedCostModel.DEFAULT.build(board, costs);
+
+            // a couple of goals per kind, blocked cells and the start itself among them now and then
+            Routes routes = new Routes(grid.getCells());
+            int[][] goals = new int[KINDS][];
+            for (int kind = 0; kind < KINDS; kind++) {
+                goals[kind] = new int[1 + random.nextInt(3)];
+                for (int i = 0; i < goals[kind].length; i++) {
+                    goals[kind][i] = random.nextInt(20) == 0 ? start : random.nextInt(grid.getCells());
+                    routes.addGoal(kind, goals[kind][i]);
+                }
+            }
+            pathfinding.routes(board, start, routes);
+
+            for (int kind = 0; kind < KINDS; kind++) {
+                String at = "position " + position + " kind " + kind;
+                int nearest = Pathfinding.NO_ROUTE;
+                boolean moves = false;
+                for (int goal : goals[kind]) {
+                    Move move = pathfinding.route(board, start, goal);
+                    int cost = pathfinding.getNewestScore();
+                    if (cost < nearest) {
+                        nearest = cost;
+                        moves = move != null;
+                    }
+                }
+                assertEquals(at, nearest != Pathfinding.NO_ROUTE, routes.isFound(kind));
+                if (!routes.isFound(kind)) {
+                    assertNull(at, routes.getMove(kind));
+                    continue;
+                }
+                assertEquals(at, nearest, routes.getCost(kind));
+                if (!moves) {
+                    // only the start itself is that close
+                    assertNull(at, routes.getMove(kind));
+                    continue;
+                }
+
+                // ties can pick another first move, but it has to start a route just as cheap
+                Move move = routes.getMove(kind);
+                assertNotNull(at, move);
+                int next = grid.neighbour(start, move.ordinal());
+                int rest = Pathfinding.NO_ROUTE;
+                for (int goal : goals[kind]) {
+                    pathfinding.route(board, next, goal);
+                    rest = Math.min(rest, pathfinding.getNewestScore());
+                }
+                assertEquals(at, nearest, costs[next] + rest);
+            }
+        }
+    }
+}
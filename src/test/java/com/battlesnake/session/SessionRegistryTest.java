@@ -0,0 +1,33 @@
+package com.battlesnake.session;
+
+import com.battlesnake.minimax.TranspositionTable;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class SessionRegistryTest {
+
+    // a request that overran still holds the game, the next one gets a board of its own
+    @Test
+    public void busySessionIsNotShared() throws InterruptedException, ExecutionException {
+        SessionRegistry sessions = new SessionRegistry(8, 60000, new TranspositionTable(1));
+        GameSession overrun = sessions.acquire("game", 11, 11);
+
+        GameSession next = CompletableFuture.supplyAsync(() -> sessions.acquire("game", 11, 11)).get();
+        assertNotSame(overrun, next);
+        assertNotSame(overrun.getBoard(), next.getBoard());
+        CompletableFuture.runAsync(() -> sessions.release(next)).get();
+
+        sessions.release(overrun);
+        GameSession after = CompletableFuture.supplyAsync(() -> {
+            GameSession session = sessions.acquire("game", 11, 11);
+            sessions.release(session);
+            return session;
+        }).get();
+        assertSame(overrun, after);
+    }
+}
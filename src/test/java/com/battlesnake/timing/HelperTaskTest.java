@@ -0,0 +1,72 @@
+package com.battlesnake.timing;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HelperTaskTest {
+
+    // the only worker is busy with another game, so the helper is dropped instead of waited for
+    @Test
+    public void queuedHelperIsDropped() throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch busy = new CountDownLatch(1);
+        try {
+            pool.submit(() -> {
+                busy.countDown();
+                await(release);
+            });
+            assertTrue(busy.await(5, TimeUnit.SECONDS));
+
+            AtomicBoolean ran = new AtomicBoolean();
+            HelperTask<String> helper = new HelperTask<>(pool, () -> {
+                ran.set(true);
+                return "helped";
+            });
+            long start = System.nanoTime();
+            assertNull(helper.finish());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+
+            release.countDown();
+            pool.awaitQuiescence(5, TimeUnit.SECONDS);
+            assertFalse(ran.get());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    // a helper that has started is waited for, whatever it found is kept
+    @Test
+    public void startedHelperIsJoined() throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            HelperTask<String> helper = new HelperTask<>(pool, () -> {
+                started.countDown();
+                return "helped";
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertEquals("helped", helper.finish());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}